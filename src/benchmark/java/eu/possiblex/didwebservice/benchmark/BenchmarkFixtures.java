@@ -0,0 +1,291 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.MaterializedDidDocument;
+import eu.possiblex.didwebservice.repositories.ParticipantCertificate;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.service.CertificateService;
+import eu.possiblex.didwebservice.service.CertificateServiceImpl;
+import eu.possiblex.didwebservice.service.DidDocumentServiceImpl;
+import eu.possiblex.didwebservice.service.DidWebUrlService;
+import eu.possiblex.didwebservice.service.DidWebUrlServiceFake;
+import eu.possiblex.didwebservice.service.ParticipantFilterService;
+import eu.possiblex.didwebservice.utils.JwkUtils;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared setup of the benchmarks: generated certificates, participants and services that are wired with an in-memory
+ * repository instead of a database, so the benchmarks measure the service code only.
+ */
+final class BenchmarkFixtures {
+
+    static final String DID_WEB_DOMAIN = "example.com";
+
+    static final UUID PARTICIPANT_ID = UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c");
+
+    static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private BenchmarkFixtures() {
+
+    }
+
+    /**
+     * Log at the default level of the application and format the log lines as the console appender does, but discard
+     * them, so the cost of logging is measured without the console the benchmark runs in.
+     */
+    static void configureLogging() {
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5level [%thread] %logger{36} : %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    /**
+     * Generate a self-signed certificate with an RSA key of the given size.
+     *
+     * @param keySize size of the RSA key in bits
+     * @return certificate in PEM format
+     */
+    static String generateCertificatePem(int keySize) {
+
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(keySize);
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+            X500Name subject = new X500Name("CN=" + DID_WEB_DOMAIN);
+            Instant now = Instant.now();
+            X509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE,
+                Date.from(now), Date.from(now.plus(Duration.ofDays(365))), subject, keyPair.getPublic());
+            X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(
+                certificateBuilder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+
+            StringWriter pem = new StringWriter();
+            try (JcaPEMWriter pemWriter = new JcaPEMWriter(pem)) {
+                pemWriter.writeObject(certificate);
+            }
+            return pem.toString();
+        } catch (GeneralSecurityException | OperatorCreationException | IOException e) {
+            throw new IllegalStateException("Failed to generate certificate", e);
+        }
+    }
+
+    /**
+     * Create a participant with the given number of verification methods that all use the given certificate. The public
+     * JWK components are stored in the verification methods as done when the participant is created.
+     *
+     * @param verificationMethodCount number of verification methods
+     * @param certificatePem certificate of the verification methods in PEM format
+     * @param certificateService service to derive the public JWK with
+     * @return participant
+     */
+    static ParticipantDidDataEntity createParticipant(int verificationMethodCount, String certificatePem,
+        CertificateService certificateService) throws CertificateException {
+
+        PublicJwk publicJwk = certificateService.getPublicJwk(certificatePem);
+        List<VerificationMethodEntity> verificationMethods = new ArrayList<>();
+        for (int i = 0; i < verificationMethodCount; i++) {
+            VerificationMethodEntity verificationMethod = new VerificationMethodEntity(null, "cert-" + i,
+                certificatePem);
+            verificationMethod.setKty(publicJwk.getKty());
+            verificationMethod.setN(publicJwk.getN());
+            verificationMethod.setE(publicJwk.getE());
+            verificationMethod.setAlg(publicJwk.getAlg());
+            verificationMethod.setThumbprint(JwkUtils.computeThumbprint(publicJwk));
+            verificationMethods.add(verificationMethod);
+        }
+
+        ParticipantDidDataEntity participant = new ParticipantDidDataEntity();
+        participant.setParticipantId(PARTICIPANT_ID);
+        participant.setVerificationMethods(verificationMethods);
+        participant.setAliases(List.of("https://" + DID_WEB_DOMAIN));
+        participant.setCreatedAt(Instant.now());
+        participant.setUpdatedAt(participant.getCreatedAt());
+        return participant;
+    }
+
+    /**
+     * Create a repository that serves the given participants from memory. Only the lookups of the public endpoints are
+     * supported.
+     *
+     * @param participants participants to serve by their id
+     * @return in-memory repository
+     */
+    static ParticipantDidDataRepository createInMemoryRepository(Map<UUID, ParticipantDidDataEntity> participants) {
+
+        return (ParticipantDidDataRepository) Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(),
+            new Class<?>[] { ParticipantDidDataRepository.class }, (proxy, method, args) -> {
+                ParticipantDidDataEntity participant =
+                    args != null && args.length > 0 ? participants.get(args[0]) : null;
+                return switch (method.getName()) {
+                    case "findByParticipantId" -> participant;
+                    case "existsByParticipantId" -> participant != null;
+                    case "findMaterializedDidDocumentByParticipantId" ->
+                        participant == null ? null : toMaterializedDidDocument(participant);
+                    case "findCertificateByParticipantIdAndCertificateId" ->
+                        participant == null ? null : toParticipantCertificate(participant, (String) args[1]);
+                    case "toString" -> "InMemoryParticipantDidDataRepository";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            });
+    }
+
+    /**
+     * Create the certificate service as configured by default, with the common verification method enabled.
+     *
+     * @param repository repository to load the participant certificates from
+     * @return certificate service
+     */
+    static CertificateServiceImpl createCertificateService(ParticipantDidDataRepository repository)
+        throws CertificateException {
+
+        return new CertificateServiceImpl(true, "", 10000, Duration.ofMinutes(10), 10000, DataSize.ofMegabytes(64),
+            true, 10000, Duration.ofDays(1), repository, createDidWebUrlService(), createParticipantFilterService());
+    }
+
+    /**
+     * Create the DID document service as configured by default, with the common verification method enabled.
+     *
+     * @param repository repository to load the participants from
+     * @param certificateService certificate service to parse the common certificate with
+     * @return DID document service
+     */
+    static DidDocumentServiceImpl createDidDocumentService(ParticipantDidDataRepository repository,
+        CertificateService certificateService) {
+
+        return new DidDocumentServiceImpl(true, "JWK2020-PossibleLetsEncrypt", 10000, Duration.ofMinutes(10), 10000,
+            Duration.ofMinutes(10), true, 10000, Duration.ofDays(1), repository, createDidWebUrlService(),
+            certificateService, createParticipantFilterService(), OBJECT_MAPPER);
+    }
+
+    private static DidWebUrlService createDidWebUrlService() {
+
+        return new DidWebUrlServiceFake(DID_WEB_DOMAIN);
+    }
+
+    private static ParticipantFilterService createParticipantFilterService() {
+
+        return new ParticipantFilterService() {
+            @Override
+            public boolean mightExist(UUID participantId) {
+
+                return true;
+            }
+
+            @Override
+            public void recordFalsePositive() {
+                // nothing to record without a filter
+            }
+        };
+    }
+
+    private static MaterializedDidDocument toMaterializedDidDocument(ParticipantDidDataEntity participant) {
+
+        return new MaterializedDidDocument() {
+            @Override
+            public String getDidDocument() {
+
+                return participant.getDidDocument();
+            }
+
+            @Override
+            public String getDidDocumentFingerprint() {
+
+                return participant.getDidDocumentFingerprint();
+            }
+
+            @Override
+            public Instant getUpdatedAt() {
+
+                return participant.getUpdatedAt();
+            }
+        };
+    }
+
+    private static ParticipantCertificate toParticipantCertificate(ParticipantDidDataEntity participant,
+        String certificateId) {
+
+        return participant.getVerificationMethods().stream()
+            .filter(verificationMethod -> verificationMethod.getCertificateId().equals(certificateId)).findFirst()
+            .map(verificationMethod -> new ParticipantCertificate() {
+                @Override
+                public String getCertificate() {
+
+                    return verificationMethod.getCertificate();
+                }
+
+                @Override
+                public Instant getUpdatedAt() {
+
+                    return participant.getUpdatedAt();
+                }
+            }).orElse(null);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.service.CertificateServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a PEM certificate with RSA keys of different sizes with looking it up in the parsed certificate
+ * cache of the certificate service, which digests the PEM content to find the cached certificate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CertificateParsingBenchmark {
+
+    @Param({ "2048", "4096" })
+    private int keySize;
+
+    private byte[] certificatePemBytes;
+
+    private String certificatePem;
+
+    private CertificateFactory certificateFactory;
+
+    private CertificateServiceImpl certificateService;
+
+    @Setup
+    public void setUp() throws CertificateException {
+
+        certificatePem = BenchmarkFixtures.generateCertificatePem(keySize);
+        certificatePemBytes = certificatePem.getBytes(StandardCharsets.UTF_8);
+        certificateFactory = CertificateFactory.getInstance("X.509");
+        certificateService = BenchmarkFixtures.createCertificateService(null);
+    }
+
+    @Benchmark
+    public Certificate parse() throws CertificateException {
+
+        return certificateFactory.generateCertificate(new ByteArrayInputStream(certificatePemBytes));
+    }
+
+    @Benchmark
+    public X509Certificate convertCached() throws CertificateException {
+
+        return certificateService.convertPemStringToCertificate(certificatePem);
+    }
+
+    @Benchmark
+    public PublicJwk publicJwkCached() throws CertificateException {
+
+        return certificateService.getPublicJwk(certificatePem);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.did.VerificationMethod;
+import eu.possiblex.didwebservice.service.CertificateServiceFake;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the common verification method of a participant DID document by parsing the common certificate
+ * for every document with deriving it from the template that is built once at startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommonVerificationMethodBenchmark {
+
+    private static final String COMMON_DID = "did:web:example.com";
+
+    private static final String VERIFICATION_METHOD_ID =
+        "did:web:example.com:participant:c0334816-5608-387d-b935-7894158d4b1c#common";
+
+    private static final String CERTIFICATE_URL = "https://example.com/.well-known/cert.ss.pem";
+
+    private VerificationMethod template;
+
+    @Setup
+    public void setUp() throws CertificateException {
+
+        template = parseCommonVerificationMethod(null);
+    }
+
+    @Benchmark
+    public VerificationMethod parsePerDocument() throws CertificateException {
+
+        return parseCommonVerificationMethod(VERIFICATION_METHOD_ID);
+    }
+
+    @Benchmark
+    public VerificationMethod copyTemplate() {
+
+        return template.toBuilder().id(VERIFICATION_METHOD_ID).build();
+    }
+
+    private static VerificationMethod parseCommonVerificationMethod(String id) throws CertificateException {
+
+        RSAPublicKey publicKey = (RSAPublicKey) ((X509Certificate) CertificateFactory.getInstance("X.509")
+            .generateCertificate(new ByteArrayInputStream(
+                CertificateServiceFake.EXAMPLE_CERTIFICATE.getBytes(StandardCharsets.UTF_8)))).getPublicKey();
+
+        return VerificationMethod.builder().id(id).controller(COMMON_DID).publicKeyJwk(
+            PublicJwk.builder().kty("RSA").alg("PS256")
+                .n(Base64.getUrlEncoder().encodeToString(publicKey.getModulus().toByteArray()))
+                .e(Base64.getUrlEncoder().encodeToString(publicKey.getPublicExponent().toByteArray()))
+                .x5u(CERTIFICATE_URL).build()).build();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.config.BoundaryExceptionHandler;
+import eu.possiblex.didwebservice.controller.DidControllerImpl;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.service.CertificateServiceImpl;
+import eu.possiblex.didwebservice.service.DidDocumentServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static eu.possiblex.didwebservice.benchmark.BenchmarkFixtures.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Measures the full path of the public endpoints from the dispatcher servlet through the controller and the services
+ * down to an in-memory repository, for cached, uncached, conditional and unknown requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerPathBenchmark {
+
+    private static final String DID_DOCUMENT_PATH = "/participant/{participantId}/did.json";
+
+    private static final String CERTIFICATE_PATH = "/participant/{participantId}/{certificateId}.pem";
+
+    private static final ParticipantDidChangedEvent PARTICIPANT_CHANGED = new ParticipantDidChangedEvent(
+        PARTICIPANT_ID.toString());
+
+    private DidDocumentServiceImpl didDocumentService;
+
+    private CertificateServiceImpl certificateService;
+
+    private MockMvc mockMvc;
+
+    private String didDocumentEtag;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        configureLogging();
+        Map<UUID, ParticipantDidDataEntity> participants = new HashMap<>();
+        ParticipantDidDataRepository repository = createInMemoryRepository(participants);
+        certificateService = createCertificateService(repository);
+        ParticipantDidDataEntity participant = createParticipant(1, generateCertificatePem(2048),
+            certificateService);
+        participants.put(PARTICIPANT_ID, participant);
+        didDocumentService = createDidDocumentService(repository, certificateService);
+        didDocumentService.materializeParticipantDidDocument(participant);
+
+        DidControllerImpl controller = new DidControllerImpl(Duration.ofMinutes(5), Duration.ofMinutes(1),
+            Duration.ofDays(1), didDocumentService, certificateService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new BoundaryExceptionHandler(Duration.ofSeconds(10), Duration.ofSeconds(10))).build();
+        didDocumentEtag = getDidDocument().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getDidDocument() throws Exception {
+
+        return mockMvc.perform(get(DID_DOCUMENT_PATH, PARTICIPANT_ID)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getDidDocumentUncached() throws Exception {
+
+        // invalidate the cached response as a change of the participant does, so it is loaded again
+        didDocumentService.onParticipantDidChanged(PARTICIPANT_CHANGED);
+        return mockMvc.perform(get(DID_DOCUMENT_PATH, PARTICIPANT_ID)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getDidDocumentNotModified() throws Exception {
+
+        return mockMvc.perform(get(DID_DOCUMENT_PATH, PARTICIPANT_ID).header(HttpHeaders.IF_NONE_MATCH,
+            didDocumentEtag)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getCertificate() throws Exception {
+
+        return mockMvc.perform(get(CERTIFICATE_PATH, PARTICIPANT_ID, "cert-0")).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getUnknownParticipant() throws Exception {
+
+        return mockMvc.perform(get(DID_DOCUMENT_PATH, "00000000-0000-0000-0000-000000000000")).andReturn()
+            .getResponse();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.service.CertificateServiceImpl;
+import eu.possiblex.didwebservice.service.DidDocumentServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.cert.CertificateException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static eu.possiblex.didwebservice.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Measures building the DID document of a single participant from its data, serializing a DID document to JSON and
+ * serving it from the document cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DidDocumentBenchmark {
+
+    private static final ParticipantDidChangedEvent PARTICIPANT_CHANGED = new ParticipantDidChangedEvent(
+        PARTICIPANT_ID.toString());
+
+    @Param({ "1", "5" })
+    private int verificationMethodCount;
+
+    private DidDocumentServiceImpl didDocumentService;
+
+    private ParticipantDidDataEntity participant;
+
+    private DidDocument didDocument;
+
+    @Setup
+    public void setUp() throws CertificateException {
+
+        configureLogging();
+        Map<UUID, ParticipantDidDataEntity> participants = new HashMap<>();
+        ParticipantDidDataRepository repository = createInMemoryRepository(participants);
+        CertificateServiceImpl certificateService = createCertificateService(repository);
+        participant = createParticipant(verificationMethodCount, generateCertificatePem(2048), certificateService);
+        participants.put(PARTICIPANT_ID, participant);
+        didDocumentService = createDidDocumentService(repository, certificateService);
+        didDocument = didDocumentService.getParticipantDidDocument(PARTICIPANT_ID.toString());
+    }
+
+    @Benchmark
+    public DidDocument build() {
+
+        // invalidate the cached document as a change of the participant does, so it is built again
+        didDocumentService.onParticipantDidChanged(PARTICIPANT_CHANGED);
+        return didDocumentService.getParticipantDidDocument(PARTICIPANT_ID.toString());
+    }
+
+    @Benchmark
+    public String buildAndSerialize() {
+
+        didDocumentService.materializeParticipantDidDocument(participant);
+        return participant.getDidDocument();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+
+        return OBJECT_MAPPER.writeValueAsBytes(didDocument);
+    }
+
+    @Benchmark
+    public DidDocument cached() {
+
+        return didDocumentService.getParticipantDidDocument(PARTICIPANT_ID.toString());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.utils.DidUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resolving did:web identifiers to the URI of their DID document, which is done for every verification method
+ * of a built DID document, and parsing the participant id of a request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DidUtilsBenchmark {
+
+    private static final String PARTICIPANT_ID = "c0334816-5608-387d-b935-7894158d4b1c";
+
+    private static final String PARTICIPANT_DID = "did:web:example.com%3A4443:participant:" + PARTICIPANT_ID;
+
+    private static final String DOMAIN_DID = "did:web:example.com%3A4443";
+
+    @Benchmark
+    public String participantDidDocumentUri() {
+
+        return DidUtils.getDidDocumentUri(PARTICIPANT_DID);
+    }
+
+    @Benchmark
+    public String domainDidDocumentUri() {
+
+        return DidUtils.getDidDocumentUri(DOMAIN_DID);
+    }
+
+    @Benchmark
+    public UUID parseParticipantId() {
+
+        return DidUtils.parseParticipantId(PARTICIPANT_ID);
+    }
+}
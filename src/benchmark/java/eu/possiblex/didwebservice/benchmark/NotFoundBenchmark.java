@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.config.BoundaryExceptionHandler;
+import eu.possiblex.didwebservice.models.dto.ErrorResponseTO;
+import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares answering a request for an unknown participant by throwing an exception with a stack trace that is logged
+ * at ERROR level (as done before not-found outcomes were made stackless) with the stackless and rate-limited handling
+ * of the {@link BoundaryExceptionHandler}. Log output is encoded as usual but written to a discarding stream, and the
+ * exceptions are thrown from a nested call chain to approximate the depth of a servlet request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotFoundBenchmark {
+
+    private static final int CALL_DEPTH = 100;
+
+    private static final String MESSAGE = "No participant with id c0334816-5608-387d-b935-7894158d4b1c exists.";
+
+    private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(NotFoundBenchmark.class);
+
+    private BoundaryExceptionHandler handler;
+
+    @Setup
+    public void setUp() {
+
+        BenchmarkFixtures.configureLogging();
+        handler = new BoundaryExceptionHandler(Duration.ofSeconds(10), Duration.ofSeconds(10));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponseTO> stackTraceLoggedAtError() {
+
+        try {
+            throwNested(CALL_DEPTH, true);
+            return null;
+        } catch (RuntimeException e) {
+            LOG.error("Caught boundary exception: {}", e.getClass().getName(), e);
+            return new ResponseEntity<>(new ErrorResponseTO("Requested participant was not found", e.getMessage()),
+                HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponseTO> stacklessRateLimited() {
+
+        try {
+            throwNested(CALL_DEPTH, false);
+            return null;
+        } catch (ParticipantNotFoundException e) {
+            return handler.handleException(e);
+        }
+    }
+
+    private static void throwNested(int depth, boolean withStackTrace) {
+
+        if (depth > 0) {
+            throwNested(depth - 1, withStackTrace);
+        } else if (withStackTrace) {
+            throw new IllegalStateException(MESSAGE);
+        } else {
+            throw new ParticipantNotFoundException(MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.did.VerificationMethod;
+import eu.possiblex.didwebservice.service.CertificateServiceFake;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing a DID document response through Jackson message conversion (as done for a returned
+ * {@link DidDocument}) with writing the pre-serialized bytes that are kept in the response cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseRenderingBenchmark {
+
+    private static final String DID = "did:web:example.com:participant:c0334816-5608-387d-b935-7894158d4b1c";
+
+    @Param({ "1", "5" })
+    private int verificationMethodCount;
+
+    private DidDocument didDocument;
+
+    private byte[] renderedDidDocument;
+
+    private MappingJackson2HttpMessageConverter jacksonConverter;
+
+    private ByteArrayHttpMessageConverter byteArrayConverter;
+
+    @Setup
+    public void setUp() throws CertificateException, IOException {
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        byteArrayConverter = new ByteArrayHttpMessageConverter();
+
+        RSAPublicKey publicKey = (RSAPublicKey) ((X509Certificate) CertificateFactory.getInstance("X.509")
+            .generateCertificate(new ByteArrayInputStream(
+                CertificateServiceFake.EXAMPLE_CERTIFICATE.getBytes(StandardCharsets.UTF_8)))).getPublicKey();
+
+        List<VerificationMethod> verificationMethods = new ArrayList<>();
+        for (int i = 0; i < verificationMethodCount; i++) {
+            verificationMethods.add(VerificationMethod.builder().id(DID + "#cert-" + i).controller(DID).publicKeyJwk(
+                PublicJwk.builder().kty("RSA").alg("PS256")
+                    .n(Base64.getUrlEncoder().encodeToString(publicKey.getModulus().toByteArray()))
+                    .e(Base64.getUrlEncoder().encodeToString(publicKey.getPublicExponent().toByteArray()))
+                    .x5u("https://example.com/participant/c0334816-5608-387d-b935-7894158d4b1c/cert-" + i + ".pem")
+                    .build()).build());
+        }
+        didDocument = DidDocument.builder().id(DID).verificationMethod(verificationMethods)
+            .alsoKnownAs(List.of("https://example.com")).build();
+        renderedDidDocument = objectMapper.writeValueAsBytes(didDocument);
+    }
+
+    @Benchmark
+    public void jacksonMessageConversion(Blackhole blackhole) throws IOException {
+
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        jacksonConverter.write(didDocument, MediaType.APPLICATION_JSON, outputMessage);
+        blackhole.consume(outputMessage.getBodyAsBytes());
+    }
+
+    @Benchmark
+    public void preSerializedBytes(Blackhole blackhole) throws IOException {
+
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        byteArrayConverter.write(renderedDidDocument, MediaType.APPLICATION_JSON, outputMessage);
+        blackhole.consume(outputMessage.getBodyAsBytes());
+    }
+}
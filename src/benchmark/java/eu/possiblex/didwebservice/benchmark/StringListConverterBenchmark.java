@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.benchmark;
+
+import eu.possiblex.didwebservice.repositories.StringListConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures joining and splitting the legacy alias column, which is done for every participant during the migration of
+ * the aliases into their own table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringListConverterBenchmark {
+
+    @Param({ "1", "10" })
+    private int aliasCount;
+
+    private final StringListConverter converter = new StringListConverter();
+
+    private List<String> aliases;
+
+    private String column;
+
+    @Setup
+    public void setUp() {
+
+        aliases = new ArrayList<>();
+        for (int i = 0; i < aliasCount; i++) {
+            aliases.add("https://participant-" + i + ".example.com");
+        }
+        column = converter.convertToDatabaseColumn(aliases);
+    }
+
+    @Benchmark
+    public String toDatabaseColumn() {
+
+        return converter.convertToDatabaseColumn(aliases);
+    }
+
+    @Benchmark
+    public List<String> toEntityAttribute() {
+
+        return converter.convertToEntityAttribute(column);
+    }
+}
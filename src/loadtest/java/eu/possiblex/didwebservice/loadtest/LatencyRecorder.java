@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the latencies and errors of one operation on one load generating thread. Recorders of all threads are
+ * merged for the report, so recording itself needs no synchronization.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+
+    private int count;
+
+    private long errors;
+
+    /**
+     * Record a completed request.
+     *
+     * @param latencyNanos time from sending the request to receiving the complete response
+     * @param success whether the response had the expected status
+     */
+    void record(long latencyNanos, boolean success) {
+
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    /**
+     * Merge the given recorders and summarize them.
+     *
+     * @param recorders recorders of the same operation
+     * @param measured duration of the measurement
+     * @return summary of the operation
+     */
+    static Summary summarize(List<LatencyRecorder> recorders, Duration measured) {
+
+        long[] merged = new long[recorders.stream().mapToInt(recorder -> recorder.count).sum()];
+        long errors = 0;
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, offset, recorder.count);
+            offset += recorder.count;
+            errors += recorder.errors;
+        }
+        Arrays.sort(merged);
+
+        Map<String, Double> latencyMillis = new LinkedHashMap<>();
+        latencyMillis.put("p50", percentileMillis(merged, 0.5));
+        latencyMillis.put("p99", percentileMillis(merged, 0.99));
+        latencyMillis.put("p999", percentileMillis(merged, 0.999));
+        latencyMillis.put("max", merged.length == 0 ? 0 : merged[merged.length - 1] / 1_000_000.0);
+
+        double seconds = measured.toNanos() / 1_000_000_000.0;
+        return new Summary(merged.length, errors, merged.length / seconds, latencyMillis);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+
+        if (sorted.length == 0) {
+            return 0;
+        }
+        // nearest rank, so the reported value was actually observed
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+
+    /**
+     * Summary of the requests of an operation.
+     *
+     * @param requests number of completed requests
+     * @param errors number of requests that were answered with an unexpected status or failed
+     * @param throughput completed requests per second
+     * @param latencyMillis latency percentiles and maximum in milliseconds
+     */
+    record Summary(long requests, long errors, double throughput, Map<String, Double> latencyMillis) {
+    }
+}
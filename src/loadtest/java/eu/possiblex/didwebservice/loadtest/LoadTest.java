@@ -0,0 +1,445 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test of the service. Boots the application against a fresh file-based H2 database, seeds it with
+ * participants through the management endpoints and then drives a weighted mix of public and management requests over
+ * HTTP from a fixed number of concurrent clients. Latency percentiles and throughput per operation are written as JSON.
+ * <p>
+ * The load test is configured with {@code loadtest.*} properties, all other arguments are passed to the application:
+ * <ul>
+ *     <li>{@code loadtest.participants}: number of seeded participants</li>
+ *     <li>{@code loadtest.certificates-per-participant}: number of certificates of each participant</li>
+ *     <li>{@code loadtest.key-size}: RSA key size of the generated certificates</li>
+ *     <li>{@code loadtest.seed-batch-size}: number of participants created per bulk request while seeding, 0 to create
+ *     each participant with a request of its own</li>
+ *     <li>{@code loadtest.concurrency}: number of concurrent clients, each sending the next request when the previous
+ *     one completed</li>
+ *     <li>{@code loadtest.warm-up}: duration of the unrecorded warm-up</li>
+ *     <li>{@code loadtest.duration}: duration of the measurement</li>
+ *     <li>{@code loadtest.mix}: relative weights of the operations</li>
+ *     <li>{@code loadtest.output}: file the JSON report is written to</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final Path DATABASE_DIRECTORY = Path.of("target", "loadtest");
+
+    private static final String DEFAULT_MIX = "did-document=70,certificate=20,not-found=5,resolve-alias=3,update=2";
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build()
+        .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10)).build();
+
+    private final AtomicLong updateRevision = new AtomicLong();
+
+    private final String baseUrl;
+
+    private LoadTest(int port) {
+
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        FileSystemUtils.deleteRecursively(DATABASE_DIRECTORY);
+        Map<String, String> properties = new LinkedHashMap<>();
+        // run with the configuration of the application instead of the one of the tests that shadows it on the
+        // test classpath
+        properties.put("spring.config.location", "file:./target/classes/application.yml");
+        properties.put("spring.datasource.url", "jdbc:h2:file:./" + DATABASE_DIRECTORY.resolve("database"));
+        properties.put("spring.h2.console.enabled", "false");
+        properties.put("server.port", "0");
+        // the clients measure the service, TLS termination is usually done in front of it
+        properties.put("server.ssl.enabled", "false");
+
+        // pass the properties as arguments, so they take precedence over the configuration file unless given
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((key, value) -> {
+            if (Arrays.stream(args).noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+                arguments.add("--" + key + "=" + value);
+            }
+        });
+        arguments.addAll(Arrays.asList(args));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DidWebServiceApplication.class).run(
+            arguments.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Map<String, Object> report = new LoadTest(port).run(context.getEnvironment());
+
+            Path output = Path.of(context.getEnvironment()
+                .getProperty("loadtest.output", DATABASE_DIRECTORY.resolve("result.json").toString()));
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            OBJECT_MAPPER.writeValue(output.toFile(), report);
+            System.out.println(OBJECT_MAPPER.writeValueAsString(report));
+        }
+    }
+
+    private Map<String, Object> run(Environment environment) throws Exception {
+
+        int participantCount = environment.getProperty("loadtest.participants", Integer.class, 200);
+        int certificateCount = environment.getProperty("loadtest.certificates-per-participant", Integer.class, 2);
+        int keySize = environment.getProperty("loadtest.key-size", Integer.class, 2048);
+        int seedBatchSize = environment.getProperty("loadtest.seed-batch-size", Integer.class, 0);
+        int concurrency = environment.getProperty("loadtest.concurrency", Integer.class, 16);
+        Duration warmUp = environment.getProperty("loadtest.warm-up", Duration.class, Duration.ofSeconds(10));
+        Duration duration = environment.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30));
+        Map<Operation, Integer> mix = parseMix(environment.getProperty("loadtest.mix", DEFAULT_MIX));
+
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("participants", participantCount);
+        configuration.put("certificatesPerParticipant", certificateCount);
+        configuration.put("keySize", keySize);
+        configuration.put("seedBatchSize", seedBatchSize);
+        configuration.put("concurrency", concurrency);
+        configuration.put("warmUp", warmUp.toString());
+        configuration.put("duration", duration.toString());
+        configuration.put("mix", mix.entrySet().stream()
+            .collect(LinkedHashMap::new, (map, e) -> map.put(e.getKey().key, e.getValue()), Map::putAll));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("configuration", configuration);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Participant> participants = new ArrayList<>();
+            report.put("seeding", seed(executor, participantCount, certificateCount, keySize, seedBatchSize,
+                participants));
+            report.putAll(drive(executor, concurrency, participants, mix, warmUp, duration));
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Create the participants through the management endpoints, each with its own certificates. With a batch size
+     * above 0 the participants are created through the bulk endpoint.
+     */
+    private Map<String, Object> seed(ExecutorService executor, int participantCount, int certificateCount,
+        int keySize, int batchSize, List<Participant> participants) throws Exception {
+
+        List<Map<String, String>> certificates = IntStream.range(0, participantCount).parallel()
+            .mapToObj(i -> generateCertificates(certificateCount, keySize)).toList();
+
+        long start = System.nanoTime();
+        List<Future<List<Participant>>> created = new ArrayList<>();
+        int step = batchSize > 0 ? batchSize : 1;
+        for (int i = 0; i < participantCount; i += step) {
+            int from = i;
+            int to = Math.min(i + step, participantCount);
+            created.add(executor.submit(() -> batchSize > 0 ? createParticipants(from, certificates.subList(from, to))
+                : List.of(createParticipant(from, certificates.get(from)))));
+        }
+        for (Future<List<Participant>> participant : created) {
+            participants.addAll(participant.get());
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Object> seeding = new LinkedHashMap<>();
+        seeding.put("participants", participantCount);
+        seeding.put("durationMillis", elapsed.toMillis());
+        seeding.put("throughput", participantCount / (elapsed.toNanos() / 1_000_000_000.0));
+        return seeding;
+    }
+
+    private Participant createParticipant(int index, Map<String, String> certificates) throws IOException,
+        InterruptedException {
+
+        String response = post("/internal/didweb", createRequest(index, certificates), "participant " + index);
+        return toParticipant(index, certificates, OBJECT_MAPPER.readValue(response, ParticipantDidTo.class));
+    }
+
+    private List<Participant> createParticipants(int from, List<Map<String, String>> certificates)
+        throws IOException, InterruptedException {
+
+        List<ParticipantDidCreateRequestTo> requests = IntStream.range(0, certificates.size())
+            .mapToObj(i -> createRequest(from + i, certificates.get(i))).toList();
+        String response = post("/internal/didweb/bulk", requests,
+            "participants " + from + " to " + (from + certificates.size() - 1));
+
+        List<ParticipantDidCreateResultTo> results = OBJECT_MAPPER.readValue(response, new TypeReference<>() {
+        });
+        List<Participant> participants = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            ParticipantDidCreateResultTo result = results.get(i);
+            if (result.getStatus() != ParticipantDidCreateResultTo.Status.CREATED) {
+                throw new IllegalStateException(
+                    "Failed to seed participant " + (from + i) + ": " + result.getStatus() + " " + result.getError());
+            }
+            participants.add(toParticipant(from + i, certificates.get(i), result.getParticipantDid()));
+        }
+        return participants;
+    }
+
+    private ParticipantDidCreateRequestTo createRequest(int index, Map<String, String> certificates) {
+
+        return new ParticipantDidCreateRequestTo("Load Test Participant " + index, List.of(alias(index)),
+            certificates);
+    }
+
+    private String post(String path, Object body, String description) throws IOException, InterruptedException {
+
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(body))).build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(
+                "Failed to seed " + description + ": " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static Participant toParticipant(int index, Map<String, String> certificates,
+        ParticipantDidTo participantDid) {
+
+        String did = participantDid.getDid();
+        return new Participant(did, did.substring(did.lastIndexOf(':') + 1), alias(index),
+            List.copyOf(certificates.keySet()));
+    }
+
+    private static String alias(int index) {
+
+        return "https://participant-" + index + ".loadtest.example.com";
+    }
+
+    /**
+     * Send requests from the given number of clients until the warm-up and the measurement are over and summarize the
+     * requests that were started during the measurement.
+     */
+    private Map<String, Object> drive(ExecutorService executor, int concurrency, List<Participant> participants,
+        Map<Operation, Integer> mix, Duration warmUp, Duration duration) throws Exception {
+
+        Operation[] weightedOperations = mix.entrySet().stream()
+            .flatMap(e -> Stream.generate(e::getKey).limit(e.getValue())).toArray(Operation[]::new);
+
+        long measurementStart = System.nanoTime() + warmUp.toNanos();
+        long measurementEnd = measurementStart + duration.toNanos();
+        List<Future<Map<Operation, LatencyRecorder>>> clients = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            clients.add(executor.submit(() -> {
+                Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long start;
+                while ((start = System.nanoTime()) < measurementEnd) {
+                    Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+                    HttpRequest request = createRequest(operation,
+                        participants.get(random.nextInt(participants.size())));
+                    boolean success;
+                    try {
+                        success = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()
+                            == operation.expectedStatus;
+                    } catch (IOException e) {
+                        success = false;
+                    }
+                    if (start >= measurementStart) {
+                        recorders.computeIfAbsent(operation, o -> new LatencyRecorder())
+                            .record(System.nanoTime() - start, success);
+                    }
+                }
+                return recorders;
+            }));
+        }
+
+        Map<Operation, List<LatencyRecorder>> recordersByOperation = new EnumMap<>(Operation.class);
+        for (Future<Map<Operation, LatencyRecorder>> client : clients) {
+            client.get().forEach(
+                (operation, recorder) -> recordersByOperation.computeIfAbsent(operation, o -> new ArrayList<>())
+                    .add(recorder));
+        }
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        recordersByOperation.forEach((operation, recorders) -> operations.put(operation.key,
+            LatencyRecorder.summarize(recorders, duration)));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("total", LatencyRecorder.summarize(
+            recordersByOperation.values().stream().flatMap(List::stream).toList(), duration));
+        results.put("operations", operations);
+        return results;
+    }
+
+    private HttpRequest createRequest(Operation operation, Participant participant) {
+
+        return switch (operation) {
+            case DID_DOCUMENT -> get("/participant/" + participant.participantId + "/did.json");
+            case CERTIFICATE -> get("/participant/" + participant.participantId + "/" + participant.certificateIds.get(
+                ThreadLocalRandom.current().nextInt(participant.certificateIds.size())) + ".pem");
+            case NOT_FOUND -> get("/participant/" + UUID.randomUUID() + "/did.json");
+            case RESOLVE_ALIAS ->
+                get("/internal/didweb?alias=" + URLEncoder.encode(participant.alias, StandardCharsets.UTF_8));
+            case UPDATE -> {
+                // keep the resolvable alias and change a second one, so each update modifies the identity
+                ParticipantDidUpdateRequestTo request = new ParticipantDidUpdateRequestTo(participant.did,
+                    List.of(participant.alias, participant.alias + "/revision/" + updateRevision.incrementAndGet()),
+                    null);
+                try {
+                    yield HttpRequest.newBuilder(URI.create(baseUrl + "/internal/didweb"))
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(request)))
+                        .build();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private HttpRequest get(String path) {
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.trim().split("=");
+            Operation operation = Operation.fromKey(keyAndWeight[0].trim());
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix " + mix + " contains no operation with a positive weight");
+        }
+        return weights;
+    }
+
+    private static Map<String, String> generateCertificates(int count, int keySize) {
+
+        Map<String, String> certificates = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            certificates.put("cert-" + i, generateCertificatePem(keySize));
+        }
+        return certificates;
+    }
+
+    private static String generateCertificatePem(int keySize) {
+
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(keySize);
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+            X500Name subject = new X500Name("CN=loadtest.example.com");
+            Instant now = Instant.now();
+            X509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE,
+                Date.from(now), Date.from(now.plus(Duration.ofDays(365))), subject, keyPair.getPublic());
+
+            StringWriter pem = new StringWriter();
+            try (JcaPEMWriter pemWriter = new JcaPEMWriter(pem)) {
+                pemWriter.writeObject(new JcaX509CertificateConverter().getCertificate(
+                    certificateBuilder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()))));
+            }
+            return pem.toString();
+        } catch (GeneralSecurityException | OperatorCreationException | IOException e) {
+            throw new IllegalStateException("Failed to generate certificate", e);
+        }
+    }
+
+    private enum Operation {
+        DID_DOCUMENT("did-document", 200),
+        CERTIFICATE("certificate", 200),
+        NOT_FOUND("not-found", 404),
+        RESOLVE_ALIAS("resolve-alias", 200),
+        UPDATE("update", 200);
+
+        private final String key;
+
+        private final int expectedStatus;
+
+        Operation(String key, int expectedStatus) {
+
+            this.key = key;
+            this.expectedStatus = expectedStatus;
+        }
+
+        static Operation fromKey(String key) {
+
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation " + key);
+        }
+    }
+
+    private record Participant(String did, String participantId, String alias, List<String> certificateIds) {
+    }
+}
@@ -21,20 +21,55 @@ import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException
 import eu.possiblex.didwebservice.models.exceptions.DidDocumentGenerationException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.RequestArgumentException;
+import eu.possiblex.didwebservice.utils.RepositoryUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.springframework.http.HttpStatus.*;
 
 /**
- * Exception handler for boundary exceptions that should be passed as API response.
+ * Exception handler for boundary exceptions that should be passed as API response. Requests for unknown participants
+ * or certificates are expected client behaviour and may arrive in large numbers, so they are only counted and logged
+ * once per interval, while server errors are logged with their full stack trace. Requests that fail because the
+ * database is unavailable are answered with 503 Service Unavailable, so clients can retry later.
  */
 @RestControllerAdvice
 @Slf4j
-public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler {
+public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler implements MeterBinder {
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final AtomicLong participantNotFoundCount = new AtomicLong();
+
+    private final AtomicLong certificateNotFoundCount = new AtomicLong();
+
+    private final AtomicLong unavailableCount = new AtomicLong();
+
+    private final LogSampler notFoundLogSampler;
+
+    private final LogSampler unavailableLogSampler;
+
+    public BoundaryExceptionHandler(
+        @Value("${boundary-logging.not-found-log-interval:10s}") Duration notFoundLogInterval,
+        @Value("${boundary-logging.unavailable-log-interval:10s}") Duration unavailableLogInterval) {
+
+        this.notFoundLogSampler = new LogSampler(notFoundLogInterval);
+        this.unavailableLogSampler = new LogSampler(unavailableLogInterval);
+    }
 
     /**
      * Handle exceptions that occur when the DID document could not be generated.
@@ -53,7 +88,8 @@ public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler
     public ResponseEntity<ErrorResponseTO> handleException(ParticipantNotFoundException e) {
 
-        logError(e);
+        participantNotFoundCount.incrementAndGet();
+        logSampled(notFoundLogSampler, e);
         return new ResponseEntity<>(new ErrorResponseTO("Requested participant was not found", e.getMessage()),
             NOT_FOUND);
     }
@@ -64,7 +100,8 @@ public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler
     public ResponseEntity<ErrorResponseTO> handleException(CertificateNotFoundException e) {
 
-        logError(e);
+        certificateNotFoundCount.incrementAndGet();
+        logSampled(notFoundLogSampler, e);
         return new ResponseEntity<>(new ErrorResponseTO("Requested certificate was not found", e.getMessage()),
             NOT_FOUND);
     }
@@ -80,6 +117,24 @@ public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler {
             BAD_REQUEST);
     }
 
+    /**
+     * Handle exceptions that occur when accessing the database. If the database is unavailable, the request is answered
+     * with 503 Service Unavailable without waiting for it to recover.
+     */
+    @ExceptionHandler({ DataAccessException.class, TransactionException.class })
+    public ResponseEntity<ErrorResponseTO> handleRepositoryException(NestedRuntimeException e) {
+
+        if (!RepositoryUtils.isRepositoryUnavailable(e)) {
+            return handleException(e);
+        }
+
+        unavailableCount.incrementAndGet();
+        logSampled(unavailableLogSampler, e);
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+            .body(new ErrorResponseTO("Service is temporarily unavailable", e.getMessage()));
+    }
+
     /**
      * Handle all other exceptions.
      */
@@ -95,4 +150,91 @@ public class BoundaryExceptionHandler extends ResponseEntityExceptionHandler {
         log.error("Caught boundary exception: {}", e.getClass().getName(), e);
     }
 
+    /**
+     * Log an expected outcome without a stack trace. At most one of them is logged at WARN level per interval of the
+     * sampler together with the number of outcomes that were suppressed since, all others are only logged at DEBUG
+     * level.
+     */
+    private void logSampled(LogSampler sampler, RuntimeException e) {
+
+        long suppressed = sampler.tryLog();
+        if (suppressed >= 0) {
+            log.warn("Caught boundary exception: {}: {} ({} similar exceptions suppressed)", e.getClass().getName(),
+                e.getMessage(), suppressed);
+        } else {
+            log.debug("Caught boundary exception: {}: {}", e.getClass().getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Register the number of requests for unknown participants and certificates and of requests that failed because
+     * the database was unavailable.
+     *
+     * @param registry registry to bind the metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder("boundary.not.found", participantNotFoundCount, AtomicLong::get)
+            .tag("type", "participant").description("Requests that were answered with not found").register(registry);
+        FunctionCounter.builder("boundary.not.found", certificateNotFoundCount, AtomicLong::get)
+            .tag("type", "certificate").description("Requests that were answered with not found").register(registry);
+        FunctionCounter.builder("boundary.unavailable", unavailableCount, AtomicLong::get)
+            .description("Requests that failed because the database was unavailable").register(registry);
+    }
+
+    /**
+     * Get the number of requests that were answered with not found.
+     *
+     * @return number of not-found outcomes for participants and certificates
+     */
+    long getNotFoundCount() {
+
+        return participantNotFoundCount.get() + certificateNotFoundCount.get();
+    }
+
+    /**
+     * Get the number of not-found outcomes that were not logged at WARN level since the last one that was.
+     *
+     * @return number of suppressed not-found log messages
+     */
+    long getSuppressedNotFoundCount() {
+
+        return notFoundLogSampler.suppressed.get();
+    }
+
+    /**
+     * Lets at most one log message pass per interval and counts the suppressed ones.
+     */
+    private static final class LogSampler {
+
+        private final long intervalNanos;
+
+        private final AtomicLong nextLogTime;
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private LogSampler(Duration interval) {
+
+            this.intervalNanos = interval.toNanos();
+            this.nextLogTime = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * Try to log a message.
+         *
+         * @return number of messages suppressed since the last logged one, or -1 if this message is suppressed
+         */
+        private long tryLog() {
+
+            long now = System.nanoTime();
+            long next = nextLogTime.get();
+            if (now - next >= 0 && nextLogTime.compareAndSet(next, now + intervalNanos)) {
+                return suppressed.getAndSet(0);
+            }
+            suppressed.incrementAndGet();
+            return -1;
+        }
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Configuration of the Hibernate second-level cache. Participants are cached by their natural id together with their
+ * verification methods and aliases in bounded in-process regions, so repeated lookups of the same participant do not
+ * query the database. Hibernate keeps the regions up to date on writes of this node.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final List<String> PARTICIPANT_REGIONS = List.of(ParticipantDidDataEntity.CACHE_REGION,
+        ParticipantDidDataEntity.NATURAL_ID_CACHE_REGION, ParticipantDidDataEntity.VERIFICATION_METHODS_CACHE_REGION,
+        ParticipantDidDataEntity.ALIASES_CACHE_REGION);
+
+    private static final List<String> REGIONS = List.of(ParticipantDidDataEntity.CACHE_REGION,
+        ParticipantDidDataEntity.NATURAL_ID_CACHE_REGION, ParticipantDidDataEntity.VERIFICATION_METHODS_CACHE_REGION,
+        ParticipantDidDataEntity.ALIASES_CACHE_REGION, VerificationMethodEntity.CACHE_REGION);
+
+    private final boolean enabled;
+
+    private final long participantMaxSize;
+
+    private final long verificationMethodMaxSize;
+
+    private final Duration ttl;
+
+    public SecondLevelCacheConfig(@Value("${second-level-cache.enabled:true}") boolean enabled,
+        @Value("${second-level-cache.participant-max-size:10000}") long participantMaxSize,
+        @Value("${second-level-cache.verification-method-max-size:50000}") long verificationMethodMaxSize,
+        @Value("${second-level-cache.ttl:1h}") Duration ttl) {
+
+        this.enabled = enabled;
+        this.participantMaxSize = participantMaxSize;
+        this.verificationMethodMaxSize = verificationMethodMaxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Create the cache manager that holds the regions of the second-level cache, each bounded by its maximum size and
+     * the time to live of its entries.
+     *
+     * @return cache manager of the second-level cache
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        for (String region : PARTICIPANT_REGIONS) {
+            cacheManager.createCache(region, regionConfiguration(participantMaxSize));
+        }
+        cacheManager.createCache(VerificationMethodEntity.CACHE_REGION,
+            regionConfiguration(verificationMethodMaxSize));
+        return cacheManager;
+    }
+
+    /**
+     * Enable the second-level cache backed by the regions of the given cache manager, together with the statistics
+     * the region metrics are computed from unless they were configured explicitly. Statistics do not log the metrics of
+     * each session unless that is configured explicitly too.
+     *
+     * @param secondLevelCacheManager cache manager of the second-level cache
+     * @return customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.putIfAbsent(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    /**
+     * Register the hits, misses and the hit ratio of each region of the second-level cache.
+     *
+     * @param entityManagerFactory entity manager factory owning the second-level cache
+     * @return binder of the region metrics
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : REGIONS) {
+                FunctionCounter.builder("second.level.cache.hits", statistics,
+                        s -> regionStatistic(s, region, CacheRegionStatistics::getHitCount)).tag("region", region)
+                    .description("Lookups served from the second-level cache region").register(registry);
+                FunctionCounter.builder("second.level.cache.misses", statistics,
+                        s -> regionStatistic(s, region, CacheRegionStatistics::getMissCount)).tag("region", region)
+                    .description("Lookups not found in the second-level cache region").register(registry);
+                Gauge.builder("second.level.cache.hit.ratio", statistics, s -> hitRatio(s, region))
+                    .tag("region", region).description("Share of lookups served from the second-level cache region")
+                    .register(registry);
+            }
+        };
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration(long maxSize) {
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttl.toMillis())));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+
+    private static double regionStatistic(Statistics statistics, String region,
+        ToLongFunction<CacheRegionStatistics> statistic) {
+
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        return regionStatistics == null ? 0 : statistic.applyAsLong(regionStatistics);
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+
+        double hits = regionStatistic(statistics, region, CacheRegionStatistics::getHitCount);
+        double lookups = hits + regionStatistic(statistics, region, CacheRegionStatistics::getMissCount);
+        return lookups == 0 ? 0 : hits / lookups;
+    }
+}
@@ -17,13 +17,19 @@
 
 package eu.possiblex.didwebservice.controller;
 
-import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
 import eu.possiblex.didwebservice.service.CertificateService;
 import eu.possiblex.didwebservice.service.DidDocumentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+
 @RestController
 
 public class DidControllerImpl implements DidController {
@@ -31,11 +37,22 @@ public class DidControllerImpl implements DidController {
 
     private final CertificateService certificateService;
 
-    public DidControllerImpl(@Autowired DidDocumentService didDocumentService,
-        @Autowired CertificateService certificateService) {
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final CacheControl cacheControl;
+
+    private final CacheControl staleCacheControl;
+
+    public DidControllerImpl(@Value("${public-cache-control.max-age:5m}") Duration maxAge,
+        @Value("${public-cache-control.stale-while-revalidate:1m}") Duration staleWhileRevalidate,
+        @Value("${public-cache-control.stale-if-error:1d}") Duration staleIfError,
+        @Autowired DidDocumentService didDocumentService, @Autowired CertificateService certificateService) {
 
         this.didDocumentService = didDocumentService;
         this.certificateService = certificateService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().staleWhileRevalidate(staleWhileRevalidate)
+            .staleIfError(staleIfError);
+        this.staleCacheControl = CacheControl.noCache().cachePublic().staleIfError(staleIfError);
     }
 
     /**
@@ -45,9 +62,9 @@ public class DidControllerImpl implements DidController {
      * @return participant DID document
      */
     @Override
-    public DidDocument getDidDocument(@PathVariable(value = "participantId") String participantId) {
+    public ResponseEntity<byte[]> getDidDocument(@PathVariable(value = "participantId") String participantId) {
 
-        return didDocumentService.getParticipantDidDocument(participantId);
+        return toResponse(didDocumentService.getRenderedParticipantDidDocument(participantId));
     }
 
     /**
@@ -56,10 +73,10 @@ public class DidControllerImpl implements DidController {
      * @return specific participant certificate
      */
     @Override
-    public String getCertificate(@PathVariable(value = "participantId") String participantId,
+    public ResponseEntity<byte[]> getCertificate(@PathVariable(value = "participantId") String participantId,
         @PathVariable(value = "certificateId") String certificateId) {
 
-        return certificateService.getParticipantCertificate(participantId, certificateId);
+        return toResponse(certificateService.getRenderedParticipantCertificate(participantId, certificateId));
     }
 
     /**
@@ -68,9 +85,9 @@ public class DidControllerImpl implements DidController {
      * @return Common DID document
      */
     @Override
-    public DidDocument getCommonDidDocument() {
+    public ResponseEntity<byte[]> getCommonDidDocument() {
 
-        return didDocumentService.getCommonDidDocument();
+        return toResponse(didDocumentService.getRenderedCommonDidDocument());
     }
 
     /**
@@ -79,8 +96,32 @@ public class DidControllerImpl implements DidController {
      * @return Common certificate
      */
     @Override
-    public String getCommonCertificate() {
+    public ResponseEntity<byte[]> getCommonCertificate() {
+
+        return toResponse(certificateService.getRenderedCommonCertificate());
+    }
+
+    /**
+     * Write the pre-serialized resource to the response as-is, without any further message conversion. Since the
+     * strong ETag and the Last-Modified time of the resource are set, conditional requests with a matching
+     * If-None-Match or If-Modified-Since header are answered with 304 Not Modified and no body. The configured
+     * Cache-Control policy allows shared caches in front of the service to serve the resource without revalidation.
+     * Stale resources, which are served while the current version could not be loaded, carry a Warning header and
+     * must be revalidated by caches, so they are replaced as soon as the current version is available again.
+     *
+     * @param resource resource to return
+     * @return response containing the resource bytes
+     */
+    private ResponseEntity<byte[]> toResponse(RenderedResource resource) {
 
-        return certificateService.getCommonCertificate();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(resource.getEtag())
+            .cacheControl(resource.isStale() ? staleCacheControl : cacheControl);
+        if (resource.getLastModified() != null) {
+            builder.lastModified(resource.getLastModified());
+        }
+        if (resource.isStale()) {
+            builder.header(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        return builder.body(resource.getContent());
     }
 }
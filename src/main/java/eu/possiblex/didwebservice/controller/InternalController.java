@@ -17,6 +17,7 @@
 package eu.possiblex.didwebservice.controller;
 
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 import io.swagger.v3.oas.annotations.Operation;
@@ -24,6 +25,8 @@ import io.swagger.v3.oas.annotations.Parameter;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RequestMapping("/internal")
 public interface InternalController {
     @Operation(summary = "Generate a new did:web identity", tags = {
@@ -31,11 +34,22 @@ public interface InternalController {
     @PostMapping(value = "/didweb", produces = MediaType.APPLICATION_JSON_VALUE)
     ParticipantDidTo generateDidWeb(@RequestBody ParticipantDidCreateRequestTo to);
 
+    @Operation(summary = "Generate multiple did:web identities", tags = {
+        "Management" }, description = "Generate a did:web identity for each entry of the payload. Entries are validated independently, the result of each entry is returned in the order of the payload.")
+    @PostMapping(value = "/didweb/bulk", produces = MediaType.APPLICATION_JSON_VALUE)
+    List<ParticipantDidCreateResultTo> generateDidWebs(@RequestBody List<ParticipantDidCreateRequestTo> tos);
+
     @Operation(summary = "Update an existing did:web identity", tags = {
         "Management" }, description = "Update a did:web identity that is managed by this did-web-service. Fields with null value are ignored.")
     @PatchMapping(value = "/didweb", produces = MediaType.APPLICATION_JSON_VALUE)
     ParticipantDidTo updateDidWeb(@RequestBody ParticipantDidUpdateRequestTo to);
 
+    @Operation(summary = "Resolve an alias to its did:web identity", tags = {
+        "Management" }, description = "Get the did:web identity managed by this did-web-service that lists the given alias", parameters = {
+        @Parameter(name = "alias", description = "The alias to resolve", example = "https://someorganization.com") })
+    @GetMapping(value = "/didweb", params = "alias", produces = MediaType.APPLICATION_JSON_VALUE)
+    ParticipantDidTo getDidWebByAlias(@RequestParam String alias);
+
     @Operation(summary = "Delete a did:web identity", tags = {
         "Management" }, description = "Delete the provided did:web identity that is managed by this did-web-service", parameters = {
         @Parameter(name = "did", description = "The did:web managed by this Service to be deleted", example = "did:web:example.com:participant:someorgltd") })
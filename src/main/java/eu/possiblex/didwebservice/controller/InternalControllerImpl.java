@@ -17,14 +17,18 @@
 package eu.possiblex.didwebservice.controller;
 
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 import eu.possiblex.didwebservice.service.DidManagementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 public class InternalControllerImpl implements InternalController {
 
@@ -41,12 +45,24 @@ public class InternalControllerImpl implements InternalController {
         return didManagementService.generateParticipantDidWeb(to);
     }
 
+    @Override
+    public List<ParticipantDidCreateResultTo> generateDidWebs(@RequestBody List<ParticipantDidCreateRequestTo> tos) {
+
+        return didManagementService.generateParticipantDidWebs(tos);
+    }
+
     @Override
     public ParticipantDidTo updateDidWeb(ParticipantDidUpdateRequestTo to) {
 
         return didManagementService.updateParticipantDidWeb(to);
     }
 
+    @Override
+    public ParticipantDidTo getDidWebByAlias(@RequestParam String alias) {
+
+        return didManagementService.getParticipantDidWebByAlias(alias);
+    }
+
     @Override
     public void removeDidWeb(@PathVariable String did) {
 
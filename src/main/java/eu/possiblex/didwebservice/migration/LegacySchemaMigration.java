@@ -0,0 +1,294 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.migration;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.StringListConverter;
+import eu.possiblex.didwebservice.utils.DidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Moves data of databases created by earlier versions of the service to the current schema. The schema itself is
+ * updated by Hibernate when the entity manager factory is created, this migration runs afterward but before the
+ * application serves requests. The migration holds a row lock of the migration lock table while it runs, so nodes
+ * starting at the same time migrate one after another and the later ones find the database already migrated.
+ */
+@Component
+@Slf4j
+public class LegacySchemaMigration {
+
+    // join table that linked participants and verification methods before the verification methods referenced
+    // their participant directly
+    static final String LEGACY_VERIFICATION_METHOD_JOIN_TABLE = "participant_did_data_verification_methods";
+
+    // column that stored the aliases of a participant joined to a single string before they had their own table
+    static final String LEGACY_ALIASES_COLUMN = "aliases";
+
+    // column that stored the full did-web of a participant before participants were identified by their UUID
+    static final String LEGACY_DID_COLUMN = "did";
+
+    private static final String PARTICIPANT_TABLE = "participant_did_data";
+
+    private static final String VERIFICATION_METHOD_TABLE = "verification_method";
+
+    private static final String MIGRATION_LOCK_TABLE = "schema_migration_lock";
+
+    private static final int MIGRATION_LOCK_ID = 1;
+
+    private final StringListConverter legacyAliasesConverter = new StringListConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SequenceSupport sequenceSupport;
+
+    private final DataSource lockDataSource;
+
+    private final boolean deleteUnaddressable;
+
+    public LegacySchemaMigration(@Autowired JdbcTemplate jdbcTemplate,
+        @Autowired PlatformTransactionManager transactionManager,
+        @Autowired EntityManagerFactory entityManagerFactory, @Autowired DataSourceProperties dataSourceProperties,
+        @Value("${legacy-migration.delete-unaddressable:false}") boolean deleteUnaddressable) {
+
+        // the entity manager factory is only required so that Hibernate has updated the schema before the migration
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices()
+            .getDialect().getSequenceSupport();
+        // the lock is held by a connection outside the pool, so it neither takes a connection the migration needs nor
+        // is released when some databases commit the transaction on schema changes
+        this.lockDataSource = dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class)
+            .build();
+        this.deleteUnaddressable = deleteUnaddressable;
+    }
+
+    /**
+     * Run all migrations that apply to the connected database while holding the migration lock.
+     */
+    @PostConstruct
+    public void migrate() {
+
+        try (Connection lockConnection = lockDataSource.getConnection()) {
+            lockConnection.setAutoCommit(false);
+            try {
+                acquireMigrationLock(lockConnection);
+                runMigrations();
+            } finally {
+                lockConnection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to lock the database for the migration: " + e.getMessage(), e);
+        }
+    }
+
+    private void acquireMigrationLock(Connection lockConnection) throws SQLException {
+
+        try {
+            jdbcTemplate.update("INSERT INTO " + MIGRATION_LOCK_TABLE + " (id) SELECT " + MIGRATION_LOCK_ID
+                + " WHERE NOT EXISTS (SELECT 1 FROM " + MIGRATION_LOCK_TABLE + " WHERE id = " + MIGRATION_LOCK_ID
+                + ")");
+        } catch (DuplicateKeyException e) {
+            // inserted by another node in the meantime
+        }
+        try (PreparedStatement statement = lockConnection.prepareStatement(
+            "SELECT id FROM " + MIGRATION_LOCK_TABLE + " WHERE id = ? FOR UPDATE")) {
+            statement.setInt(1, MIGRATION_LOCK_ID);
+            statement.executeQuery().close();
+        }
+    }
+
+    private void runMigrations() {
+
+        if (tableExists(LEGACY_VERIFICATION_METHOD_JOIN_TABLE)) {
+            migrateVerificationMethodJoinTable();
+        }
+        if (columnExists(PARTICIPANT_TABLE, LEGACY_DID_COLUMN)) {
+            migrateDidColumn();
+        }
+        if (columnExists(PARTICIPANT_TABLE, LEGACY_ALIASES_COLUMN)) {
+            migrateAliasesColumn();
+        }
+        advanceIdSequence(PARTICIPANT_TABLE, ParticipantDidDataEntity.ID_SEQUENCE);
+        advanceIdSequence(VERIFICATION_METHOD_TABLE, VerificationMethodEntity.ID_SEQUENCE);
+    }
+
+    /**
+     * Store the participant of each verification method in the verification method itself and drop the join table.
+     * Verification methods that were not linked to any participant are unreachable and therefore removed.
+     */
+    private void migrateVerificationMethodJoinTable() {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int linked = jdbcTemplate.update("UPDATE verification_method vm SET participant_id = ("
+                + "SELECT j.participant_did_data_entity_id FROM " + LEGACY_VERIFICATION_METHOD_JOIN_TABLE
+                + " j WHERE j.verification_methods_id = vm.id) WHERE vm.participant_id IS NULL");
+            int removed = jdbcTemplate.update("DELETE FROM verification_method WHERE participant_id IS NULL");
+            jdbcTemplate.execute("DROP TABLE " + LEGACY_VERIFICATION_METHOD_JOIN_TABLE);
+            log.info("Migrated verification methods to participant reference, linked {} and removed {} unlinked.",
+                linked - removed, removed);
+        });
+    }
+
+    /**
+     * Derive the participant id of each participant from the last segment of its did-web and drop the did-web column.
+     * The did-web is composed from the participant id and the configured domain instead. Participants whose did-web
+     * does not end with a UUID cannot be addressed anymore. The migration is aborted if there are any, unless their
+     * removal has been enabled explicitly.
+     */
+    private void migrateDidColumn() {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> participantIds = new ArrayList<>();
+            List<Object[]> unaddressable = new ArrayList<>();
+            List<String> unaddressableDids = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, " + LEGACY_DID_COLUMN + " FROM " + PARTICIPANT_TABLE
+                + " WHERE participant_id IS NULL", resultSet -> {
+                String did = resultSet.getString(2);
+                UUID participantId = did == null ? null
+                    : DidUtils.parseParticipantId(did.substring(did.lastIndexOf(':') + 1));
+                if (participantId == null) {
+                    unaddressable.add(new Object[] { resultSet.getLong(1) });
+                    unaddressableDids.add(did);
+                } else {
+                    participantIds.add(new Object[] { participantId, resultSet.getLong(1) });
+                }
+            });
+            if (!unaddressable.isEmpty() && !deleteUnaddressable) {
+                throw new IllegalStateException("Participants with the dids " + unaddressableDids
+                    + " do not end with a UUID and cannot be migrated. Fix or remove them, or set "
+                    + "legacy-migration.delete-unaddressable to remove them during the migration.");
+            }
+            unaddressableDids.forEach(
+                did -> log.warn("Removing participant with did {} as it does not end with a UUID.", did));
+            jdbcTemplate.batchUpdate("UPDATE " + PARTICIPANT_TABLE + " SET participant_id = ? WHERE id = ?",
+                participantIds);
+            jdbcTemplate.batchUpdate("DELETE FROM participant_alias WHERE participant_id = ?", unaddressable);
+            jdbcTemplate.batchUpdate("DELETE FROM verification_method WHERE participant_id = ?", unaddressable);
+            jdbcTemplate.batchUpdate("DELETE FROM " + PARTICIPANT_TABLE + " WHERE id = ?", unaddressable);
+            jdbcTemplate.execute("ALTER TABLE " + PARTICIPANT_TABLE + " DROP COLUMN " + LEGACY_DID_COLUMN);
+            log.info("Migrated {} participants to participant id, removed {}.", participantIds.size(),
+                unaddressable.size());
+        });
+    }
+
+    /**
+     * Move the joined aliases of each participant to the alias table and drop the joined column.
+     */
+    private void migrateAliasesColumn() {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> aliasRows = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, " + LEGACY_ALIASES_COLUMN + " FROM " + PARTICIPANT_TABLE, resultSet -> {
+                List<String> aliases = legacyAliasesConverter.convertToEntityAttribute(resultSet.getString(2));
+                for (int i = 0; i < aliases.size(); i++) {
+                    aliasRows.add(new Object[] { resultSet.getLong(1), i, aliases.get(i) });
+                }
+            });
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO participant_alias (participant_id, alias_order, alias) VALUES (?, ?, ?)", aliasRows);
+            jdbcTemplate.execute("ALTER TABLE " + PARTICIPANT_TABLE + " DROP COLUMN " + LEGACY_ALIASES_COLUMN);
+            log.info("Migrated {} aliases to alias table.", aliasRows.size());
+        });
+    }
+
+    /**
+     * Move the id sequence of a table past the ids in use. Earlier versions generated ids with identity columns, so the
+     * sequence that Hibernate creates for such a database starts below the existing ids.
+     */
+    private void advanceIdSequence(String tableName, String sequenceName) {
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tableName, Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        // the pooled optimizer hands out the ids up to one allocation below each value of the sequence
+        long minimumValue = maxId + ParticipantDidDataEntity.ID_ALLOCATION_SIZE;
+        Long nextValue = jdbcTemplate.queryForObject(sequenceSupport.getSequenceNextValString(sequenceName),
+            Long.class);
+        if (nextValue != null && nextValue <= minimumValue) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + (minimumValue + 1));
+            log.info("Advanced sequence {} past the ids of table {} to {}.", sequenceName, tableName,
+                minimumValue + 1);
+        }
+    }
+
+    private boolean tableExists(String tableName) {
+
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                metaData -> hasTable(metaData, tableName) || hasTable(metaData, tableName.toUpperCase(Locale.ROOT)));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Failed to read database metadata: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean columnExists(String tableName, String columnName) {
+
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                metaData -> hasColumn(metaData, tableName, columnName) || hasColumn(metaData,
+                    tableName.toUpperCase(Locale.ROOT), columnName.toUpperCase(Locale.ROOT)));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Failed to read database metadata: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean hasColumn(DatabaseMetaData metaData, String tableName, String columnName)
+        throws SQLException {
+
+        try (ResultSet columns = metaData.getColumns(null, null, tableName, columnName)) {
+            return columns.next();
+        }
+    }
+
+    private static boolean hasTable(DatabaseMetaData metaData, String tableName) throws SQLException {
+
+        try (ResultSet tables = metaData.getTables(null, null, tableName, new String[] { "TABLE" })) {
+            return tables.next();
+        }
+    }
+}
@@ -24,7 +24,7 @@ import lombok.*;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode
 @JsonPropertyOrder({ "kty", "n", "e", "alg", "x5u" })
 public class PublicJwk {
@@ -27,7 +27,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode
 @JsonPropertyOrder({ "@context", "id", "type", "controller", "publicKeyJwk" })
 public class VerificationMethod {
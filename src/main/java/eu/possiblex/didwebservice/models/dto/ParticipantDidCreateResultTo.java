@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.models.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ParticipantDidCreateResultTo {
+    @Schema(description = "Subject of the corresponding request.", example = "Some Organization Ltd.")
+    private String subject;
+
+    @Schema(description = "Outcome of the request.", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "Created or already existing did:web identity, null if the request was rejected.")
+    private ParticipantDidTo participantDid;
+
+    @Schema(description = "Reason the request was rejected, null otherwise.", example = "Missing or empty subject name.")
+    private String error;
+
+    public enum Status {
+        CREATED, EXISTING, REJECTED
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.models.dto;
+
+import lombok.Getter;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Publicly served resource (DID document or certificate) in the exact byte representation that is written to the
+ * response, together with a strong entity tag derived from its content and the time of its last modification (null if
+ * unknown). Stale resources are last known good versions served while the current version could not be loaded.
+ */
+@Getter
+public class RenderedResource {
+    private final byte[] content;
+
+    private final String etag;
+
+    private final Instant lastModified;
+
+    private final boolean stale;
+
+    public RenderedResource(byte[] content, Instant lastModified) {
+
+        this(content, computeEtag(content), lastModified, false);
+    }
+
+    private RenderedResource(byte[] content, String etag, Instant lastModified, boolean stale) {
+
+        this.content = content;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.stale = stale;
+    }
+
+    /**
+     * Get this resource marked as stale.
+     *
+     * @return stale copy of this resource
+     */
+    public RenderedResource asStale() {
+
+        return new RenderedResource(content, etag, lastModified, true);
+    }
+
+    private static String computeEtag(byte[] content) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this runtime", e);
+        }
+    }
+}
@@ -17,35 +17,105 @@
 
 package eu.possiblex.didwebservice.models.entities;
 
-import eu.possiblex.didwebservice.repositories.StringListConverter;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "participant_did_data")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ParticipantDidDataEntity.CACHE_REGION)
+@NaturalIdCache(region = ParticipantDidDataEntity.NATURAL_ID_CACHE_REGION)
 public class ParticipantDidDataEntity {
 
+    public static final String CACHE_REGION = "participant";
+
+    public static final String NATURAL_ID_CACHE_REGION = "participant-natural-id";
+
+    public static final String VERIFICATION_METHODS_CACHE_REGION = "participant-verification-methods";
+
+    public static final String ALIASES_CACHE_REGION = "participant-aliases";
+
+    public static final String ID_SEQUENCE = "participant_did_data_seq";
+
+    // ids are taken from a pooled sequence instead of an identity column, so inserts can be sent in JDBC batches
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    // UUID the did-web of the participant is composed of, the did-web itself depends on the configured domain
+    @NaturalId
     @Column(unique = true)
-    @NotNull
-    private String did;
+    private UUID participantId;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "participant", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = VERIFICATION_METHODS_CACHE_REGION)
     private List<VerificationMethodEntity> verificationMethods = new ArrayList<>();
 
-    @Convert(converter = StringListConverter.class)
+    @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ALIASES_CACHE_REGION)
+    @CollectionTable(name = "participant_alias", joinColumns = @JoinColumn(name = "participant_id"), indexes = @Index(
+        name = "idx_participant_alias_alias", columnList = "alias"))
+    @OrderColumn(name = "alias_order")
+    @Column(name = "alias", length = 1024)
     private List<String> aliases = new ArrayList<>();
 
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    // DID document JSON as served to clients, rendered whenever the identity is written
+    @Lob
+    private String didDocument;
+
+    // fingerprint of the rendering settings the stored DID document was rendered with
+    private String didDocumentFingerprint;
+
+    /**
+     * Replace the verification methods of this participant. Verification methods with a certificate id that this
+     * participant already has are updated in place, as Hibernate inserts new rows before it deletes orphaned ones and
+     * a replaced row would violate the unique certificate id per participant. The new verification methods are linked
+     * to this participant and the ones that are no longer contained are removed from the database.
+     *
+     * @param verificationMethods new verification methods
+     */
+    public void setVerificationMethods(List<VerificationMethodEntity> verificationMethods) {
+
+        if (verificationMethods == this.verificationMethods) {
+            return;
+        }
+        Map<String, VerificationMethodEntity> replacements = new LinkedHashMap<>();
+        verificationMethods.forEach(vm -> replacements.put(vm.getCertificateId(), vm));
+        this.verificationMethods.removeIf(vm -> !replacements.containsKey(vm.getCertificateId()));
+        for (VerificationMethodEntity existing : this.verificationMethods) {
+            VerificationMethodEntity replacement = replacements.remove(existing.getCertificateId());
+            existing.setCertificate(replacement.getCertificate());
+            existing.setKty(replacement.getKty());
+            existing.setN(replacement.getN());
+            existing.setE(replacement.getE());
+            existing.setAlg(replacement.getAlg());
+            existing.setThumbprint(replacement.getThumbprint());
+        }
+        for (VerificationMethodEntity verificationMethod : replacements.values()) {
+            verificationMethod.setParticipant(this);
+            this.verificationMethods.add(verificationMethod);
+        }
+    }
 }
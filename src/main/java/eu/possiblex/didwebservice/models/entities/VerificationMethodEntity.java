@@ -17,23 +17,57 @@
 package eu.possiblex.didwebservice.models.entities;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "verification_method")
+@Table(name = "verification_method", uniqueConstraints = @UniqueConstraint(
+    name = "uk_verification_method_participant_certificate", columnNames = { "participant_id", "certificate_id" }))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = VerificationMethodEntity.CACHE_REGION)
 public class VerificationMethodEntity {
+
+    public static final String CACHE_REGION = "verification-method";
+
+    public static final String ID_SEQUENCE = "verification_method_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE,
+        allocationSize = ParticipantDidDataEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "participant_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ParticipantDidDataEntity participant;
+
     private String certificateId;
 
     @Lob
     private String certificate;
 
+    // public JWK components extracted from the certificate, null if not extracted yet or not an RSA key
+    private String kty;
+
+    @Column(length = 2048)
+    private String n;
+
+    private String e;
+
+    private String alg;
+
+    private String thumbprint;
+
+    public VerificationMethodEntity(Long id, String certificateId, String certificate) {
+
+        this.id = id;
+        this.certificateId = certificateId;
+        this.certificate = certificate;
+    }
+
 }
@@ -0,0 +1,31 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.models.events;
+
+/**
+ * Published whenever the stored data of a hosted did:web identity was created, updated or removed.
+ *
+ * @param participantId id of the participant whose identity changed
+ * @param remote whether the change was made by another node of the cluster
+ */
+public record ParticipantDidChangedEvent(String participantId, boolean remote) {
+
+    public ParticipantDidChangedEvent(String participantId) {
+
+        this(participantId, false);
+    }
+}
@@ -17,9 +17,13 @@
 
 package eu.possiblex.didwebservice.models.exceptions;
 
+/**
+ * Thrown when a participant has no certificate with the requested id. Requests for unknown certificate ids are
+ * routine, so the exception carries no stack trace.
+ */
 public class CertificateNotFoundException extends RuntimeException {
     public CertificateNotFoundException(String message) {
 
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -17,9 +17,13 @@
 
 package eu.possiblex.didwebservice.models.exceptions;
 
+/**
+ * Thrown when no participant with the requested did is hosted by this service. Scans for unknown participants are
+ * answered at high rates, which is why no stack trace is filled in.
+ */
 public class ParticipantNotFoundException extends RuntimeException {
     public ParticipantNotFoundException(String message) {
 
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.repositories;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantChangeEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ParticipantChangeRepository extends JpaRepository<ParticipantChangeEntity, Long> {
+    List<ParticipantChangeEntity> findByChangedAtGreaterThanEqualAndIdGreaterThanOrderById(Instant changedAt, Long id,
+        Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ParticipantChangeEntity c WHERE c.changedAt < :changedAt")
+    int deleteChangedBefore(Instant changedAt);
+}
@@ -18,10 +18,40 @@
 package eu.possiblex.didwebservice.repositories;
 
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface ParticipantDidDataRepository extends JpaRepository<ParticipantDidDataEntity, String> {
-    ParticipantDidDataEntity findByDid(String did);
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
-    void deleteByDid(String did);
+public interface ParticipantDidDataRepository
+    extends JpaRepository<ParticipantDidDataEntity, String>, ParticipantDidDataRepositoryCustom {
+    MaterializedDidDocument findMaterializedDidDocumentByParticipantId(UUID participantId);
+
+    boolean existsByParticipantId(UUID participantId);
+
+    @Query("SELECT vm.certificate AS certificate, p.updatedAt AS updatedAt FROM ParticipantDidDataEntity p "
+        + "JOIN p.verificationMethods vm WHERE p.participantId = :participantId AND vm.certificateId = :certificateId")
+    ParticipantCertificate findCertificateByParticipantIdAndCertificateId(UUID participantId, String certificateId);
+
+    @Query("SELECT p.participantId FROM ParticipantDidDataEntity p JOIN p.aliases a WHERE a = :alias ORDER BY p.id")
+    List<UUID> findParticipantIdsByAlias(String alias);
+
+    @Query("SELECT p.participantId FROM ParticipantDidDataEntity p")
+    List<UUID> findAllParticipantIds();
+
+    @Query("SELECT p.participantId FROM ParticipantDidDataEntity p WHERE p.participantId IN :participantIds")
+    List<UUID> findExistingParticipantIds(Collection<UUID> participantIds);
+
+    @Query("SELECT p.participantId FROM ParticipantDidDataEntity p ORDER BY p.id")
+    Slice<UUID> findParticipantIds(Pageable pageable);
+
+    @Query("SELECT p FROM ParticipantDidDataEntity p WHERE p.didDocumentFingerprint IS NULL "
+        + "OR p.didDocumentFingerprint <> :fingerprint ORDER BY p.id")
+    List<ParticipantDidDataEntity> findWithOutdatedDidDocument(String fingerprint, Pageable pageable);
+
+    void deleteByParticipantId(UUID participantId);
 }
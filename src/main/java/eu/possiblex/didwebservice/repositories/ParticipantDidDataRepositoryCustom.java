@@ -0,0 +1,48 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.repositories;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface ParticipantDidDataRepositoryCustom {
+
+    /**
+     * Find a participant together with its verification methods and aliases by its natural id. Participants that were
+     * loaded before are served from the second-level cache without querying the database.
+     *
+     * @param participantId id of the participant
+     * @return participant or null if it does not exist
+     */
+    ParticipantDidDataEntity findByParticipantId(UUID participantId);
+
+    /**
+     * Remove the given participants with their verification methods and aliases from the second-level cache, e.g. once
+     * another node of the cluster changed them. Other participants stay cached.
+     *
+     * @param participantIds ids of the participants
+     */
+    void evictCachedParticipants(Collection<UUID> participantIds);
+
+    /**
+     * Remove all participants with their verification methods and aliases from the second-level cache, e.g. once
+     * changes of other nodes of the cluster may have been missed.
+     */
+    void evictAllCachedParticipants();
+}
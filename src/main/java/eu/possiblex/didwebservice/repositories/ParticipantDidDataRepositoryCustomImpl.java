@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.repositories;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metamodel.mapping.NaturalIdMapping;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class ParticipantDidDataRepositoryCustomImpl implements ParticipantDidDataRepositoryCustom {
+
+    private static final String FIND_BY_PARTICIPANT_ID_QUERY = "SELECT p FROM ParticipantDidDataEntity p "
+        + "LEFT JOIN FETCH p.verificationMethods LEFT JOIN FETCH p.aliases WHERE p.participantId = :participantId";
+
+    private static final String FIND_IDS_QUERY = "SELECT p.id FROM ParticipantDidDataEntity p "
+        + "WHERE p.participantId IN :participantIds";
+
+    private static final String FIND_VERIFICATION_METHOD_IDS_QUERY = "SELECT v.id FROM VerificationMethodEntity v "
+        + "WHERE v.participant.participantId IN :participantIds";
+
+    private static final String VERIFICATION_METHODS_ROLE = ParticipantDidDataEntity.class.getName()
+        + ".verificationMethods";
+
+    private static final String ALIASES_ROLE = ParticipantDidDataEntity.class.getName() + ".aliases";
+
+    private final EntityManager entityManager;
+
+    public ParticipantDidDataRepositoryCustomImpl(EntityManager entityManager) {
+
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ParticipantDidDataEntity findByParticipantId(UUID participantId) {
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel()
+            .getEntityDescriptor(ParticipantDidDataEntity.class);
+
+        // only consult the caches here, resolving an uncached natural id would cost an additional query
+        Object id = session.getPersistenceContextInternal().getNaturalIdResolutions()
+            .findCachedIdByNaturalId(participantId, persister);
+        if (id != null) {
+            ParticipantDidDataEntity participant = session.find(ParticipantDidDataEntity.class, id);
+            if (participant != null && participant.getParticipantId().equals(participantId)) {
+                Hibernate.initialize(participant.getVerificationMethods());
+                Hibernate.initialize(participant.getAliases());
+                return participant;
+            }
+        }
+
+        return entityManager.createQuery(FIND_BY_PARTICIPANT_ID_QUERY, ParticipantDidDataEntity.class)
+            .setParameter("participantId", participantId).getResultStream().findFirst().orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void evictCachedParticipants(Collection<UUID> participantIds) {
+
+        if (participantIds.isEmpty()) {
+            return;
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel()
+            .getEntityDescriptor(ParticipantDidDataEntity.class);
+        NaturalIdMapping naturalIdMapping = persister.getNaturalIdMapping();
+        NaturalIdDataAccess naturalIdCacheAccess = naturalIdMapping.getCacheAccess();
+        Cache cache = session.getFactory().getCache();
+
+        // a removed participant is no longer in the database, so its id is also taken from the natural id cache
+        Set<Object> ids = new HashSet<>(entityManager.createQuery(FIND_IDS_QUERY, Long.class)
+            .setParameter("participantIds", participantIds).getResultList());
+        for (UUID participantId : participantIds) {
+            Object cachedId = session.getPersistenceContextInternal().getNaturalIdResolutions()
+                .findCachedIdByNaturalId(participantId, persister);
+            if (cachedId != null) {
+                ids.add(cachedId);
+            }
+            if (naturalIdCacheAccess != null) {
+                naturalIdCacheAccess.evict(
+                    naturalIdCacheAccess.generateCacheKey(naturalIdMapping.normalizeInput(participantId), persister,
+                        session));
+            }
+        }
+
+        for (Object id : ids) {
+            cache.evictEntityData(ParticipantDidDataEntity.class, id);
+            cache.evictCollectionData(VERIFICATION_METHODS_ROLE, id);
+            cache.evictCollectionData(ALIASES_ROLE, id);
+        }
+        entityManager.createQuery(FIND_VERIFICATION_METHOD_IDS_QUERY, Long.class)
+            .setParameter("participantIds", participantIds).getResultList()
+            .forEach(id -> cache.evictEntityData(VerificationMethodEntity.class, id));
+    }
+
+    @Override
+    public void evictAllCachedParticipants() {
+
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        cache.evictNaturalIdData(ParticipantDidDataEntity.class);
+        cache.evictEntityData(ParticipantDidDataEntity.class);
+        cache.evictCollectionData(VERIFICATION_METHODS_ROLE);
+        cache.evictCollectionData(ALIASES_ROLE);
+        cache.evictEntityData(VerificationMethodEntity.class);
+    }
+}
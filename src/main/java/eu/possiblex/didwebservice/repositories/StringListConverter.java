@@ -24,6 +24,10 @@ import java.util.List;
 
 import static java.util.Collections.emptyList;
 
+/**
+ * Converts between a list of strings and a single string joined by semicolons. Aliases were stored in this format
+ * before they got their own table, the converter is kept to read them during the migration.
+ */
 @Converter
 public class StringListConverter implements AttributeConverter<List<String>, String> {
     private static final String SPLIT_CHAR = ";";
@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional background job that warms up the service after a deploy by loading the DID documents of all participants
+ * through the regular read path, page by page and in parallel. This fills the document caches and exercises the
+ * database, rendering and serialization code before the first requests arrive. As health indicator it reports the
+ * progress of the warm-up and keeps the readiness group out of service until the warm-up completed or its time budget
+ * expired.
+ */
+@Component
+@Slf4j
+public class CacheWarmUpJob implements HealthIndicator {
+
+    private final boolean enabled;
+
+    private final int pageSize;
+
+    private final long timeBudgetNanos;
+
+    private final ParticipantDidDataRepository participantDidDataRepository;
+
+    private final DidDocumentService didDocumentService;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ForkJoinPool warmUpPool;
+
+    private final AtomicInteger warmedUp = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile State state;
+
+    private volatile long deadline;
+
+    public CacheWarmUpJob(@Value("${cache-warm-up.enabled:false}") boolean enabled,
+        @Value("${cache-warm-up.page-size:500}") int pageSize,
+        @Value("${cache-warm-up.parallelism:4}") int parallelism,
+        @Value("${cache-warm-up.time-budget:2m}") Duration timeBudget,
+        @Autowired ParticipantDidDataRepository participantDidDataRepository,
+        @Autowired DidDocumentService didDocumentService,
+        @Autowired @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.timeBudgetNanos = timeBudget.toNanos();
+        this.participantDidDataRepository = participantDidDataRepository;
+        this.didDocumentService = didDocumentService;
+        this.taskExecutor = taskExecutor;
+        this.warmUpPool = enabled ? new ForkJoinPool(parallelism) : null;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    /**
+     * Start the warm-up in the background once the application context is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (enabled) {
+            taskExecutor.execute(this::warmUp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        if (warmUpPool != null) {
+            warmUpPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Load the DID documents of all participants page by page, the participants of each page in parallel. Participants
+     * whose DID document cannot be loaded are skipped. Stops once the time budget has expired.
+     *
+     * @return number of warmed up participants
+     */
+    public int warmUp() {
+
+        warmedUp.set(0);
+        failed.set(0);
+        deadline = System.nanoTime() + timeBudgetNanos;
+        state = State.RUNNING;
+        log.info("Starting cache warm-up.");
+
+        Pageable pageable = PageRequest.of(0, pageSize);
+        Slice<UUID> page;
+        do {
+            if (isBudgetExpired()) {
+                state = State.BUDGET_EXPIRED;
+                log.warn("Cache warm-up stopped after its time budget expired, warmed up {} participants.",
+                    warmedUp.get());
+                return warmedUp.get();
+            }
+            page = participantDidDataRepository.findParticipantIds(pageable);
+            List<UUID> participantIds = page.getContent();
+            warmUpPool.submit(() -> participantIds.parallelStream().forEach(this::warmUpParticipant)).join();
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+
+        state = State.COMPLETED;
+        log.info("Completed cache warm-up of {} participants, {} failed.", warmedUp.get(), failed.get());
+        return warmedUp.get();
+    }
+
+    /**
+     * Report the progress of the warm-up. The warm-up is out of service while it is pending or running within its time
+     * budget.
+     *
+     * @return health of the warm-up
+     */
+    @Override
+    public Health health() {
+
+        State currentState = state == State.RUNNING && isBudgetExpired() ? State.BUDGET_EXPIRED : state;
+        Health.Builder builder = currentState == State.PENDING || currentState == State.RUNNING
+            ? Health.outOfService() : Health.up();
+        return builder.withDetail("state", currentState).withDetail("warmedUp", warmedUp.get())
+            .withDetail("failed", failed.get()).build();
+    }
+
+    private void warmUpParticipant(UUID participantId) {
+
+        if (isBudgetExpired()) {
+            return;
+        }
+        try {
+            didDocumentService.getRenderedParticipantDidDocument(participantId.toString());
+            warmedUp.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.debug("Failed to warm up participant {}: {}", participantId, e.getMessage());
+        }
+    }
+
+    private boolean isBudgetExpired() {
+
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    private enum State {
+        DISABLED, PENDING, RUNNING, COMPLETED, BUDGET_EXPIRED
+    }
+}
@@ -16,6 +16,9 @@
 
 package eu.possiblex.didwebservice.service;
 
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
+
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 
@@ -37,6 +40,22 @@ public interface CertificateService {
      */
     String getCommonCertificate();
 
+    /**
+     * Returns a specific certificate for a participant as it is served to clients.
+     *
+     * @param participantId id of the participant
+     * @param certId id of the certificate
+     * @return the certificate bytes
+     */
+    RenderedResource getRenderedParticipantCertificate(String participantId, String certId);
+
+    /**
+     * Returns the certificate for the federation as it is served to clients.
+     *
+     * @return the certificate bytes
+     */
+    RenderedResource getRenderedCommonCertificate();
+
     /**
      * Convert a PEM string to a X509 certificate object.
      *
@@ -45,4 +64,14 @@ public interface CertificateService {
      * @throws CertificateException error during conversion of the certificate
      */
     X509Certificate convertPemStringToCertificate(String certs) throws CertificateException;
+
+    /**
+     * Derive the public JSON Web Key from the RSA public key of a certificate in PEM format. The returned JWK does not
+     * reference the certificate URL yet.
+     *
+     * @param certs PEM string representation of the certificate
+     * @return public JWK of the certificate
+     * @throws CertificateException error during conversion of the certificate or if it has no RSA public key
+     */
+    PublicJwk getPublicJwk(String certs) throws CertificateException;
 }
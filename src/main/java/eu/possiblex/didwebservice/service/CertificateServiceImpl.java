@@ -17,46 +17,115 @@
 package eu.possiblex.didwebservice.service;
 
 import ch.qos.logback.core.util.StringUtil;
-import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
-import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
+import eu.possiblex.didwebservice.models.events.AllParticipantsChangedEvent;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
 import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import eu.possiblex.didwebservice.repositories.ParticipantCertificate;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
 import eu.possiblex.didwebservice.utils.DidUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 @Service
 @Slf4j
-public class CertificateServiceImpl implements CertificateService {
+public class CertificateServiceImpl implements CertificateService, MeterBinder {
 
     private final ParticipantDidDataRepository participantDidDataRepository;
 
     private final DidWebUrlService didWebUrlService;
 
+    private final ParticipantFilterService participantFilterService;
+
     private final String commonCertificateContent;
 
+    private final RenderedResource renderedCommonCertificate;
+
+    private final ReadThroughCache<CertificateKey, RenderedResource> renderedCertificateCache;
+
+    private final LastKnownGoodCache<CertificateKey> lastKnownGoodCertificates;
+
+    private final Cache<String, ParsedCertificate> parsedCertificateCache;
+
+    private final OutcomeTimer certificateRequestTimer = new OutcomeTimer("resource.requests",
+        "Time to serve a resource, by whether it was cached", Tags.of("type", "certificate"),
+        OutcomeTimer.LOOKUP_OUTCOMES);
+
+    private final OutcomeTimer certificateFetchTimer = new OutcomeTimer("resource.fetch",
+        "Time to fetch the data of a resource from the database", Tags.of("type", "certificate"),
+        OutcomeTimer.CALL_OUTCOMES);
+
+    private final OutcomeTimer certificateParseTimer = new OutcomeTimer("certificate.parse",
+        "Time to parse a certificate that was not cached yet", Tags.empty(), OutcomeTimer.CALL_OUTCOMES);
+
     public CertificateServiceImpl(@Value("${common-verification-method.enabled:#{null}}") boolean commonVmEnabled,
         @Value("${common-verification-method.cert-path:#{null}}") String commonCertPath,
+        @Value("${response-cache.max-size:10000}") long responseCacheMaxSize,
+        @Value("${response-cache.ttl:10m}") Duration responseCacheTtl,
+        @Value("${certificate-cache.max-size:10000}") long certificateCacheMaxSize,
+        @Value("${certificate-cache.max-memory:64MB}") DataSize certificateCacheMaxMemory,
+        @Value("${stale-if-error.enabled:true}") boolean staleIfErrorEnabled,
+        @Value("${stale-if-error.max-size:10000}") long staleIfErrorMaxSize,
+        @Value("${stale-if-error.max-age:1d}") Duration staleIfErrorMaxAge,
         @Autowired ParticipantDidDataRepository participantDidDataRepository,
-        @Autowired DidWebUrlService didWebUrlService) throws CertificateException {
+        @Autowired DidWebUrlService didWebUrlService, @Autowired ParticipantFilterService participantFilterService)
+        throws CertificateException {
 
         this.commonCertificateContent = commonVmEnabled ? getCommonCertificatePemString(commonCertPath) : null;
+        this.renderedCertificateCache = new ReadThroughCache<>(responseCacheMaxSize, responseCacheTtl);
+        this.lastKnownGoodCertificates = new LastKnownGoodCache<>(staleIfErrorEnabled ? staleIfErrorMaxSize : 0,
+            staleIfErrorMaxAge);
+        // weigh each entry with at least the memory share of a single entry, so both the number of entries and the
+        // estimated memory stay within their bounds, a maximum size of 0 disables the cache
+        long maxWeight = certificateCacheMaxSize > 0 ? certificateCacheMaxMemory.toBytes() : 0;
+        long minEntryWeight = certificateCacheMaxSize > 0 ? Math.max(1, maxWeight / certificateCacheMaxSize) : 1;
+        this.parsedCertificateCache = Caffeine.newBuilder().maximumWeight(maxWeight)
+            .<String, ParsedCertificate>weigher(
+                (fingerprint, parsed) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minEntryWeight, parsed.size())))
+            .recordStats().build();
         this.participantDidDataRepository = participantDidDataRepository;
         this.didWebUrlService = didWebUrlService;
+        this.participantFilterService = participantFilterService;
+        // the certificate was last modified when it became valid, which all nodes agree on
+        X509Certificate commonCertificate = commonVmEnabled ? convertPemStringToCertificate(commonCertificateContent)
+            : null;
+        this.renderedCommonCertificate = commonVmEnabled ? render(commonCertificateContent,
+            commonCertificate == null ? null : commonCertificate.getNotBefore().toInstant()) : null;
     }
 
     /**
@@ -68,53 +137,193 @@ public class CertificateServiceImpl implements CertificateService {
      */
     public String getParticipantCertificate(String participantId, String certId) {
 
-        String didWeb = didWebUrlService.getDidWebForParticipant(participantId);
+        return getCertificateOfParticipant(participantId, certId).getCertificate();
+    }
 
-        ParticipantDidDataEntity participantDidDataEntity = participantDidDataRepository.findByDid(didWeb);
+    /**
+     * Get the content of the federation-wide common certificate in PEM format.
+     *
+     * @return common certificate
+     */
+    @Override
+    public String getCommonCertificate() {
 
-        if (participantDidDataEntity == null) {
-            throw new ParticipantNotFoundException("Participant with did " + didWeb + " could not be found.");
-        }
+        return commonCertificateContent;
+    }
 
-        String certificate = participantDidDataEntity.getVerificationMethods().stream()
-            .filter(vm -> vm.getCertificateId().equals(certId)).map(VerificationMethodEntity::getCertificate)
-            .findFirst().orElse(null);
+    /**
+     * Get a specific certificate for a participant in the byte representation that is served to clients. If the
+     * database is unavailable, the last known good version of the certificate is returned marked as stale.
+     *
+     * @param participantId id of the participant
+     * @param certId id of the certificate
+     * @return certificate bytes
+     */
+    @Override
+    public RenderedResource getRenderedParticipantCertificate(String participantId, String certId) {
 
-        if (certificate == null) {
-            throw new CertificateNotFoundException(
-                "Certificate with id " + certId + " for participant with did " + didWeb + " could not be found.");
+        CertificateKey certificateKey = new CertificateKey(participantId, certId);
+        return certificateRequestTimer.lookup(renderedCertificateCache, certificateKey,
+            key -> lastKnownGoodCertificates.load(key, this::loadRenderedParticipantCertificate),
+            e -> lastKnownGoodCertificates.recover(certificateKey, e));
+    }
+
+    /**
+     * Get the federation-wide common certificate in the byte representation that is served to clients.
+     *
+     * @return common certificate bytes
+     */
+    @Override
+    public RenderedResource getRenderedCommonCertificate() {
+
+        if (renderedCommonCertificate == null) {
+            throw new CertificateNotFoundException("Common certificate is not enabled.");
         }
+        return renderedCommonCertificate;
+    }
 
-        return certificate;
+    /**
+     * Remove the cached certificates of a participant once a change to its identity was committed, ahead of any other
+     * listener of the event.
+     *
+     * @param event change event of the participant
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onParticipantDidChanged(ParticipantDidChangedEvent event) {
+
+        renderedCertificateCache.invalidateIf(key -> key.participantId().equals(event.participantId()));
+        lastKnownGoodCertificates.invalidateIf(key -> key.participantId().equals(event.participantId()));
     }
 
     /**
-     * Get the content of the federation-wide common certificate in PEM format.
+     * Remove all cached certificates once changes of other nodes may have been missed.
      *
-     * @return common certificate
+     * @param event event that any participant may have changed
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAllParticipantsChanged(AllParticipantsChangedEvent event) {
+
+        evictAll();
+    }
+
+    /**
+     * Remove all cached certificates. The last known good versions that are served while the database is unavailable
+     * are kept.
+     */
+    public void evictAll() {
+
+        renderedCertificateCache.invalidateAll();
+    }
+
+    /**
+     * Register the timers of certificate requests, database fetches and parsing, the hit and miss statistics of the
+     * parsed certificate cache and the number of stale certificates that were served while the database was
+     * unavailable.
+     *
+     * @param registry registry to bind the metrics to
      */
     @Override
-    public String getCommonCertificate() {
+    public void bindTo(MeterRegistry registry) {
 
-        return commonCertificateContent;
+        certificateRequestTimer.bindTo(registry);
+        certificateFetchTimer.bindTo(registry);
+        certificateParseTimer.bindTo(registry);
+
+        CaffeineCacheMetrics.monitor(registry, parsedCertificateCache, "certificates");
+        FunctionCounter.builder("stale.responses", lastKnownGoodCertificates, LastKnownGoodCache::getStaleResponseCount)
+            .tag("type", "certificate")
+            .description("Last known good resources served while the database was unavailable").register(registry);
     }
 
     /**
-     * Convert a PEM string to a X509 certificate object.
+     * Convert a PEM string to a X509 certificate object. Parsed certificates are cached by the digest of their PEM
+     * content.
      *
      * @param certs PEM string representation of the certificate
      * @return X509 certificate object
      * @throws CertificateException error during conversion of the certificate
      */
-    @SuppressWarnings("unchecked")
     @Override
     public X509Certificate convertPemStringToCertificate(String certs) throws CertificateException {
 
+        ParsedCertificate parsed = getParsedCertificate(certs);
+        return parsed != null ? parsed.certificate() : null;
+    }
+
+    /**
+     * Derive the public JSON Web Key from the RSA public key of a certificate in PEM format. The JWK is cached together
+     * with the parsed certificate.
+     *
+     * @param certs PEM string representation of the certificate
+     * @return public JWK of the certificate
+     * @throws CertificateException error during conversion of the certificate or if it has no RSA public key
+     */
+    @Override
+    public PublicJwk getPublicJwk(String certs) throws CertificateException {
+
+        ParsedCertificate parsed = getParsedCertificate(certs);
+        if (parsed == null || parsed.publicJwk() == null) {
+            throw new CertificateException("Certificate does not contain an RSA public key.");
+        }
+        return parsed.publicJwk();
+    }
+
+    private ParsedCertificate getParsedCertificate(String certs) throws CertificateException {
+
+        try {
+            return parsedCertificateCache.get(computeFingerprint(certs), fingerprint -> {
+                long start = System.nanoTime();
+                try {
+                    ParsedCertificate parsed = parseCertificate(certs);
+                    certificateParseTimer.record(start, OutcomeTimer.SUCCESS);
+                    return parsed;
+                } catch (CertificateException e) {
+                    certificateParseTimer.record(start, OutcomeTimer.INVALID);
+                    throw new CertificateParsingFailure(e);
+                }
+            });
+        } catch (CertificateParsingFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ParsedCertificate parseCertificate(String certs) throws CertificateException {
+
         ByteArrayInputStream certStream = new ByteArrayInputStream(certs.getBytes(StandardCharsets.UTF_8));
 
         CertificateFactory certFactory = CertificateFactory.getInstance("X.509");
 
-        return ((List<X509Certificate>) certFactory.generateCertificates(certStream)).stream().findFirst().orElse(null);
+        X509Certificate certificate = ((List<X509Certificate>) certFactory.generateCertificates(certStream)).stream()
+            .findFirst().orElse(null);
+        if (certificate == null) {
+            return null;
+        }
+
+        PublicJwk publicJwk = null;
+        if (certificate.getPublicKey() instanceof RSAPublicKey rsaPublicKey) {
+            publicJwk = PublicJwk.builder().kty("RSA")
+                .n(Base64.getUrlEncoder().encodeToString(rsaPublicKey.getModulus().toByteArray()))
+                .e(Base64.getUrlEncoder().encodeToString(rsaPublicKey.getPublicExponent().toByteArray()))
+                .alg("PS256").build();
+        }
+
+        // rough estimate of the retained size: the parsed certificate keeps its encoded form and the decoded
+        // structures, the JWK holds the base64 encoded key
+        long size = 3L * certs.length();
+        return new ParsedCertificate(certificate, publicJwk, size);
+    }
+
+    private static String computeFingerprint(String certs) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(certs.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this runtime", e);
+        }
     }
 
     /**
@@ -136,4 +345,66 @@ public class CertificateServiceImpl implements CertificateService {
             throw new CertificateException("Failed to read common certificate. " + e.getMessage());
         }
     }
+
+    private RenderedResource loadRenderedParticipantCertificate(CertificateKey key) {
+
+        ParticipantCertificate certificate = getCertificateOfParticipant(key.participantId(), key.certificateId());
+        return render(certificate.getCertificate(), certificate.getUpdatedAt());
+    }
+
+    /**
+     * Load a single certificate of a participant without loading the other verification methods of the participant.
+     * Only if the certificate is not found, the existence of the participant is checked to report the right error.
+     *
+     * @param participantId id of the participant
+     * @param certId id of the certificate
+     * @return certificate with the last modification time of the participant
+     */
+    private ParticipantCertificate getCertificateOfParticipant(String participantId, String certId) {
+
+        String didWeb = didWebUrlService.getDidWebForParticipant(participantId);
+        UUID participantUuid = DidUtils.parseParticipantId(participantId);
+
+        if (participantUuid == null || !participantFilterService.mightExist(participantUuid)) {
+            throw new ParticipantNotFoundException("Participant with did " + didWeb + " could not be found.");
+        }
+
+        ParticipantCertificate certificate = certificateFetchTimer.time(
+            () -> participantDidDataRepository.findCertificateByParticipantIdAndCertificateId(participantUuid, certId));
+
+        if (certificate == null) {
+            if (!participantDidDataRepository.existsByParticipantId(participantUuid)) {
+                participantFilterService.recordFalsePositive();
+                throw new ParticipantNotFoundException("Participant with did " + didWeb + " could not be found.");
+            }
+            throw new CertificateNotFoundException(
+                "Certificate with id " + certId + " for participant with did " + didWeb + " could not be found.");
+        }
+
+        return certificate;
+    }
+
+    private RenderedResource render(String certificate, Instant lastModified) {
+
+        return new RenderedResource(certificate.getBytes(StandardCharsets.UTF_8), lastModified);
+    }
+
+    private record CertificateKey(String participantId, String certificateId) {
+    }
+
+    private record ParsedCertificate(X509Certificate certificate, PublicJwk publicJwk, long size) {
+    }
+
+    private static class CertificateParsingFailure extends RuntimeException {
+        CertificateParsingFailure(CertificateException cause) {
+
+            super(cause);
+        }
+
+        @Override
+        public synchronized CertificateException getCause() {
+
+            return (CertificateException) super.getCause();
+        }
+    }
 }
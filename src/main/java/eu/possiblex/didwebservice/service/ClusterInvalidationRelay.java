@@ -0,0 +1,443 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantChangeEntity;
+import eu.possiblex.didwebservice.models.events.AllParticipantsChangedEvent;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantChangeRepository;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.utils.DidUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagates changes of participants between the nodes of a cluster, so every node evicts its cached DID documents and
+ * certificates once another node changed them. Committed local changes are broadcast and changes of other nodes are
+ * published as remote {@link ParticipantDidChangedEvent} to the local listeners. On PostgreSQL the changes are sent
+ * with NOTIFY and received on a LISTEN connection outside the connection pool, on other databases they are written to
+ * a change table that every node polls. The changed participants are evicted from the second-level cache before the
+ * local listeners are notified, so they do not reload the outdated participant from it. Notifications sent while the
+ * LISTEN connection is re-established are lost, so all participants are evicted and an
+ * {@link AllParticipantsChangedEvent} is published once it is back. The change table is timestamped and polled by the
+ * clock of the database, so clocks of the nodes that differ do not cause changes to be missed.
+ */
+@Component
+@Slf4j
+public class ClusterInvalidationRelay {
+
+    static final String CHANNEL = "did_web_participant_changed";
+
+    private static final int POLL_BATCH_SIZE = 500;
+
+    // timestamped by the clock of the database, on some databases with the start of the transaction of the change,
+    // which the poll overlap has to cover
+    private static final String INSERT_CHANGE_SQL =
+        "INSERT INTO participant_change (participant_id, origin_node_id, changed_at) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
+    private final boolean enabled;
+
+    private final Mode configuredMode;
+
+    private final Duration pollInterval;
+
+    private final Duration pollOverlap;
+
+    private final Duration retention;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final DataSource dataSource;
+
+    private final DataSource listenDataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ParticipantChangeRepository participantChangeRepository;
+
+    private final ParticipantDidDataRepository participantDidDataRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Mode mode;
+
+    private volatile boolean running;
+
+    // time since which the changes of the other nodes have been received without interruption, null while not
+    private volatile Instant receivingSince;
+
+    // time at the start of the last successful poll, changes of other nodes committed before it have been received
+    private volatile Instant lastPolledAt;
+
+    // database time at the start of the last successful poll, changes since then minus the overlap are read again by
+    // the next poll
+    private Instant lastPollStartedAt;
+
+    // changes read by the polls within the overlap, which are not published again, with the time they were made
+    private final Map<Long, Instant> processedChanges = new HashMap<>();
+
+    public ClusterInvalidationRelay(@Value("${cluster-invalidation.enabled:true}") boolean enabled,
+        @Value("${cluster-invalidation.mode:auto}") Mode configuredMode,
+        @Value("${cluster-invalidation.poll-interval:1s}") Duration pollInterval,
+        @Value("${cluster-invalidation.poll-overlap:10s}") Duration pollOverlap,
+        @Value("${cluster-invalidation.retention:1h}") Duration retention, @Autowired DataSource dataSource,
+        @Autowired ParticipantChangeRepository participantChangeRepository,
+        @Autowired ParticipantDidDataRepository participantDidDataRepository,
+        @Autowired ApplicationEventPublisher eventPublisher,
+        @Autowired PlatformTransactionManager transactionManager,
+        @Autowired DataSourceProperties dataSourceProperties) {
+
+        this.enabled = enabled;
+        this.configuredMode = configuredMode;
+        this.pollInterval = pollInterval;
+        this.pollOverlap = pollOverlap;
+        this.retention = retention;
+        this.dataSource = dataSource;
+        // the LISTEN connection is held for the lifetime of the node, so it is not taken from the pool for requests
+        this.listenDataSource = dataSourceProperties.initializeDataSourceBuilder().type(SimpleDriverDataSource.class)
+            .build();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.participantChangeRepository = participantChangeRepository;
+        this.participantDidDataRepository = participantDidDataRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = enabled ? Executors.newScheduledThreadPool(2) : null;
+    }
+
+    /**
+     * Start receiving the changes of the other nodes once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (!enabled) {
+            return;
+        }
+
+        mode = configuredMode == Mode.AUTO ? detectMode() : configuredMode;
+        running = true;
+        if (mode == Mode.NOTIFY) {
+            scheduler.execute(this::listen);
+        } else {
+            lastPollStartedAt = getDatabaseTime();
+            receivingSince = Instant.now();
+            lastPolledAt = receivingSince;
+            scheduler.scheduleWithFixedDelay(this::pollChanges, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+            scheduler.scheduleWithFixedDelay(this::removeExpiredChanges, retention.toMillis(), retention.toMillis(),
+                TimeUnit.MILLISECONDS);
+        }
+        log.info("Relaying participant changes between cluster nodes using {} as node {}.", mode, nodeId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        running = false;
+        receivingSince = null;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Broadcast a change of a participant that was made on this node to the other nodes. The broadcast is written on
+     * the connection of the change, so it becomes visible to the other nodes exactly when the change is committed.
+     * It is enclosed in a savepoint: if it fails, only the broadcast is rolled back and logged, the change itself is
+     * still committed and reaches the other nodes once their cache entries expire. Changes made without a transaction
+     * are broadcast on their own.
+     *
+     * @param event change event of the participant
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onParticipantDidChanged(ParticipantDidChangedEvent event) {
+
+        if (!running || event.remote()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                broadcast(event.participantId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to broadcast change of participant {}.", event.participantId(), e);
+            }
+            return;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                broadcast(event.participantId());
+                connection.releaseSavepoint(savepoint);
+            } catch (RuntimeException e) {
+                connection.rollback(savepoint);
+                log.warn("Failed to broadcast change of participant {}, committing the change without it.",
+                    event.participantId(), e);
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to broadcast change of participant {}, committing the change without it.",
+                event.participantId(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Get the way changes are exchanged with the other nodes.
+     *
+     * @return mode in use, null if not started
+     */
+    Mode getMode() {
+
+        return mode;
+    }
+
+    /**
+     * Get the time since which all changes of the other nodes have been received without interruption. Changes made
+     * on other nodes before that time may have been missed.
+     *
+     * @return time since which changes were received, {@link Instant#MIN} if the relay is disabled, null while changes
+     * are not received, e.g. until the relay is started or while the database is not reachable
+     */
+    public Instant getReceivingSince() {
+
+        return enabled ? receivingSince : Instant.MIN;
+    }
+
+    /**
+     * Get the time up to which the committed changes of the other nodes have been received. Notifications arrive once
+     * the change is committed, while polled changes arrive with the next poll.
+     *
+     * @return time up to which changes were received, {@link Instant#MAX} if the relay is disabled, null while changes
+     * are not received
+     */
+    public Instant getReceivedUntil() {
+
+        if (!enabled) {
+            return Instant.MAX;
+        }
+        if (receivingSince == null) {
+            return null;
+        }
+        return mode == Mode.NOTIFY ? Instant.now() : lastPolledAt;
+    }
+
+    /**
+     * Send a change made on this node to the other nodes, using the connection of the current transaction if any.
+     */
+    private void broadcast(String participantId) {
+
+        if (mode == Mode.NOTIFY) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + ":" + participantId);
+        } else {
+            // plain JDBC instead of the repository, whose failures would mark the whole transaction rollback-only
+            jdbcTemplate.update(INSERT_CHANGE_SQL, participantId, nodeId);
+        }
+    }
+
+    /**
+     * Receive the notifications of the other nodes on a dedicated connection, re-establishing it after a failure.
+     * Changes sent while it was re-established are unknown, so all participants are considered changed then.
+     */
+    private void listen() {
+
+        boolean interrupted = false;
+        while (running) {
+            try (Connection connection = listenDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                if (interrupted) {
+                    publishAllChanged();
+                    interrupted = false;
+                }
+                receivingSince = Instant.now();
+                int timeout = (int) Math.max(1, pollInterval.toMillis());
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(timeout);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                receivingSince = null;
+                interrupted = true;
+                if (running) {
+                    log.warn("Lost connection listening for participant changes, reconnecting: {}", e.getMessage());
+                    sleep(pollInterval);
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        publishRemoteChanges(List.of(payload.substring(separator + 1)));
+    }
+
+    /**
+     * Publish the changes of the other nodes that were written to the change table since the last poll. Ids of the
+     * change table are assigned before the changes are committed, so they do not become visible in order. Instead of
+     * continuing after the highest id seen, every poll reads all changes made since the previous poll started minus
+     * the overlap again and skips the ones it processed before.
+     */
+    private void pollChanges() {
+
+        Instant since = lastPollStartedAt.minus(pollOverlap);
+        Instant polledAt = Instant.now();
+        Instant pollStartedAt;
+        try {
+            pollStartedAt = getDatabaseTime();
+            List<ParticipantChangeEntity> changes;
+            long lastId = 0;
+            do {
+                changes = participantChangeRepository.findByChangedAtGreaterThanEqualAndIdGreaterThanOrderById(since,
+                    lastId, PageRequest.of(0, POLL_BATCH_SIZE));
+                List<String> remoteChanges = new ArrayList<>();
+                for (ParticipantChangeEntity change : changes) {
+                    lastId = change.getId();
+                    if (processedChanges.putIfAbsent(change.getId(), change.getChangedAt()) == null
+                        && !change.getOriginNodeId().equals(nodeId)) {
+                        remoteChanges.add(change.getParticipantId());
+                    }
+                }
+                publishRemoteChanges(remoteChanges);
+            } while (changes.size() == POLL_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            receivingSince = null;
+            log.warn("Failed to poll participant changes: {}", e.getMessage());
+            return;
+        }
+
+        processedChanges.values().removeIf(changedAt -> changedAt.isBefore(since));
+        lastPollStartedAt = pollStartedAt;
+        lastPolledAt = polledAt;
+        if (receivingSince == null) {
+            receivingSince = polledAt;
+        }
+    }
+
+    /**
+     * Evict all participants from the second-level cache and notify the local listeners that any participant may have
+     * changed.
+     */
+    private void publishAllChanged() {
+
+        log.info("Participant changes of other nodes may have been missed, evicting all cached participants.");
+        participantDidDataRepository.evictAllCachedParticipants();
+        eventPublisher.publishEvent(new AllParticipantsChangedEvent());
+    }
+
+    private Instant getDatabaseTime() {
+
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", OffsetDateTime.class).toInstant();
+    }
+
+    /**
+     * Evict the participants changed on other nodes from the second-level cache and notify the local listeners.
+     */
+    private void publishRemoteChanges(List<String> participantIds) {
+
+        if (participantIds.isEmpty()) {
+            return;
+        }
+        participantDidDataRepository.evictCachedParticipants(
+            participantIds.stream().map(DidUtils::parseParticipantId).filter(Objects::nonNull).toList());
+        participantIds.forEach(
+            participantId -> eventPublisher.publishEvent(new ParticipantDidChangedEvent(participantId, true)));
+    }
+
+    private void removeExpiredChanges() {
+
+        try {
+            Instant expiredBefore = getDatabaseTime().minus(retention);
+            transactionTemplate.executeWithoutResult(
+                status -> participantChangeRepository.deleteChangedBefore(expiredBefore));
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove expired participant changes: {}", e.getMessage());
+        }
+    }
+
+    private Mode detectMode() {
+
+        String databaseProductName = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName) ? Mode.NOTIFY : Mode.POLL;
+    }
+
+    private static void sleep(Duration duration) {
+
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Way changes are exchanged between the nodes.
+     */
+    public enum Mode {
+        AUTO, NOTIFY, POLL
+    }
+}
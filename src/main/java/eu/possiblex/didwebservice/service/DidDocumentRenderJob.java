@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Background job that renders the stored DID documents of all participants again once the settings they were rendered
+ * with (e.g. did-web-domain or common-verification-method) have changed. Until a participant is processed, its DID
+ * document is built on demand. If the rendered DID document differs from the stored one, the participant is marked as
+ * updated, so clients revalidating with If-Modified-Since receive the new DID document.
+ */
+@Component
+@Slf4j
+public class DidDocumentRenderJob {
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final ParticipantDidDataRepository participantDidDataRepository;
+
+    private final DidDocumentService didDocumentService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor taskExecutor;
+
+    public DidDocumentRenderJob(@Value("${did-document-render-job.enabled:true}") boolean enabled,
+        @Value("${did-document-render-job.batch-size:100}") int batchSize,
+        @Autowired ParticipantDidDataRepository participantDidDataRepository,
+        @Autowired DidDocumentService didDocumentService, @Autowired ApplicationEventPublisher eventPublisher,
+        @Autowired PlatformTransactionManager transactionManager,
+        @Autowired @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.participantDidDataRepository = participantDidDataRepository;
+        this.didDocumentService = didDocumentService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Start rendering the outdated DID documents in the background once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (enabled) {
+            taskExecutor.execute(this::renderOutdatedDidDocuments);
+        }
+    }
+
+    /**
+     * Render the DID documents of all participants whose stored DID document is missing or was rendered with different
+     * settings. Each batch of participants is processed in its own transaction.
+     *
+     * @return number of rendered DID documents
+     */
+    public int renderOutdatedDidDocuments() {
+
+        String fingerprint = didDocumentService.getDidDocumentFingerprint();
+        int rendered = 0;
+        int batchCount;
+        do {
+            batchCount = transactionTemplate.execute(status -> renderOutdatedBatch(fingerprint));
+            rendered += batchCount;
+        } while (batchCount == batchSize);
+
+        if (rendered > 0) {
+            log.info("Rendered {} outdated DID documents.", rendered);
+        }
+        return rendered;
+    }
+
+    private int renderOutdatedBatch(String fingerprint) {
+
+        List<ParticipantDidDataEntity> participants = participantDidDataRepository.findWithOutdatedDidDocument(
+            fingerprint, PageRequest.of(0, batchSize));
+        for (ParticipantDidDataEntity participant : participants) {
+            String storedDidDocument = participant.getDidDocument();
+            didDocumentService.materializeParticipantDidDocument(participant);
+            // without a stored DID document the same one was built on demand, so only a replaced one is a change
+            if (storedDidDocument != null && !Objects.equals(storedDidDocument, participant.getDidDocument())) {
+                participant.setUpdatedAt(Instant.now());
+            }
+            eventPublisher.publishEvent(new ParticipantDidChangedEvent(participant.getParticipantId().toString()));
+        }
+        return participants.size();
+    }
+}
@@ -17,6 +17,8 @@
 package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 
 public interface DidDocumentService {
 
@@ -34,4 +36,35 @@ public interface DidDocumentService {
      * @return the did document
      */
     DidDocument getCommonDidDocument();
+
+    /**
+     * Returns the serialized JSON DID document for a given id.
+     *
+     * @param id id to retrieve the DID document with
+     * @return the serialized did document
+     */
+    RenderedResource getRenderedParticipantDidDocument(String id);
+
+    /**
+     * Returns the serialized JSON DID document for the dataspace federation.
+     *
+     * @return the serialized did document
+     */
+    RenderedResource getRenderedCommonDidDocument();
+
+    /**
+     * Renders the DID document of the given participant and stores it in the entity, so it can be served without
+     * rebuilding it on every request.
+     *
+     * @param participantDidDataEntity participant to render the DID document for
+     */
+    void materializeParticipantDidDocument(ParticipantDidDataEntity participantDidDataEntity);
+
+    /**
+     * Returns the fingerprint of the current rendering settings. Stored DID documents with a different fingerprint are
+     * outdated and need to be rendered again.
+     *
+     * @return the fingerprint of the rendering settings
+     */
+    String getDidDocumentFingerprint();
 }
@@ -16,29 +16,48 @@
 
 package eu.possiblex.didwebservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.possiblex.didwebservice.models.did.DidDocument;
 import eu.possiblex.didwebservice.models.did.PublicJwk;
 import eu.possiblex.didwebservice.models.did.VerificationMethod;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.models.events.AllParticipantsChangedEvent;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
 import eu.possiblex.didwebservice.models.exceptions.DidDocumentGenerationException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.PemConversionException;
+import eu.possiblex.didwebservice.repositories.MaterializedDidDocument;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
 import eu.possiblex.didwebservice.utils.DidUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.security.interfaces.RSAPublicKey;
-import java.util.Base64;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
 
 @Service
 @Slf4j
-public class DidDocumentServiceImpl implements DidDocumentService {
+public class DidDocumentServiceImpl implements DidDocumentService, MeterBinder {
 
     private final ParticipantDidDataRepository participantDidDataRepository;
 
@@ -50,16 +69,71 @@ public class DidDocumentServiceImpl implements DidDocumentService {
 
     private final String commonVmId;
 
+    private final ParticipantFilterService participantFilterService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReadThroughCache<String, DidDocument> didDocumentCache;
+
+    private final ReadThroughCache<String, RenderedResource> renderedDidDocumentCache;
+
+    private final LastKnownGoodCache<String> lastKnownGoodDidDocuments;
+
+    private final String didDocumentFingerprint;
+
+    private final VerificationMethod commonVerificationMethodTemplate;
+
+    private final DidDocument commonDidDocument;
+
+    private final RenderedResource renderedCommonDidDocument;
+
+    private final OutcomeTimer didDocumentRequestTimer = new OutcomeTimer("resource.requests",
+        "Time to serve a resource, by whether it was cached", Tags.of("type", "did-document-model"),
+        OutcomeTimer.LOOKUP_OUTCOMES);
+
+    private final OutcomeTimer renderedDidDocumentRequestTimer = new OutcomeTimer("resource.requests",
+        "Time to serve a resource, by whether it was cached", Tags.of("type", "did-document"),
+        OutcomeTimer.LOOKUP_OUTCOMES);
+
+    private final OutcomeTimer participantFetchTimer = new OutcomeTimer("resource.fetch",
+        "Time to fetch the data of a resource from the database", Tags.of("type", "participant"),
+        OutcomeTimer.CALL_OUTCOMES);
+
+    private final OutcomeTimer storedDidDocumentFetchTimer = new OutcomeTimer("resource.fetch",
+        "Time to fetch the data of a resource from the database", Tags.of("type", "stored-did-document"),
+        OutcomeTimer.CALL_OUTCOMES);
+
+    private final OutcomeTimer didDocumentBuildTimer = new OutcomeTimer("did.document.build",
+        "Time to build the DID document of a participant", Tags.empty(), OutcomeTimer.CALL_OUTCOMES);
+
     public DidDocumentServiceImpl(@Value("${common-verification-method.enabled:#{null}}") boolean commonVmEnabled,
         @Value("${common-verification-method.id:#{null}}") String commonVmId,
+        @Value("${document-cache.max-size:10000}") long documentCacheMaxSize,
+        @Value("${document-cache.ttl:10m}") Duration documentCacheTtl,
+        @Value("${response-cache.max-size:10000}") long responseCacheMaxSize,
+        @Value("${response-cache.ttl:10m}") Duration responseCacheTtl,
+        @Value("${stale-if-error.enabled:true}") boolean staleIfErrorEnabled,
+        @Value("${stale-if-error.max-size:10000}") long staleIfErrorMaxSize,
+        @Value("${stale-if-error.max-age:1d}") Duration staleIfErrorMaxAge,
         @Autowired ParticipantDidDataRepository participantDidDataRepository,
-        @Autowired DidWebUrlService didWebUrlService, @Autowired CertificateService certificateService) {
-
+        @Autowired DidWebUrlService didWebUrlService, @Autowired CertificateService certificateService,
+        @Autowired ParticipantFilterService participantFilterService, @Autowired ObjectMapper objectMapper) {
+
+        this.didDocumentCache = new ReadThroughCache<>(documentCacheMaxSize, documentCacheTtl);
+        this.renderedDidDocumentCache = new ReadThroughCache<>(responseCacheMaxSize, responseCacheTtl);
+        this.lastKnownGoodDidDocuments = new LastKnownGoodCache<>(staleIfErrorEnabled ? staleIfErrorMaxSize : 0,
+            staleIfErrorMaxAge);
+        this.objectMapper = objectMapper;
         this.commonVmEnabled = commonVmEnabled;
         this.commonVmId = commonVmId;
         this.participantDidDataRepository = participantDidDataRepository;
         this.didWebUrlService = didWebUrlService;
         this.certificateService = certificateService;
+        this.participantFilterService = participantFilterService;
+        this.didDocumentFingerprint = computeDidDocumentFingerprint();
+        this.commonVerificationMethodTemplate = commonVmEnabled ? buildCommonVerificationMethodTemplate() : null;
+        this.commonDidDocument = buildCommonDidDocument();
+        this.renderedCommonDidDocument = render(commonDidDocument, getCommonDidDocumentLastModified());
     }
 
     /**
@@ -71,20 +145,251 @@ public class DidDocumentServiceImpl implements DidDocumentService {
     @Override
     public DidDocument getParticipantDidDocument(String id) {
 
+        return didDocumentRequestTimer.lookup(didDocumentCache, id, this::loadParticipantDidDocument);
+    }
+
+    /**
+     * Get the serialized DID document for a given participant DID. If the database is unavailable, the last known good
+     * version of the DID document is returned marked as stale.
+     *
+     * @param id id to retrieve the DID document for
+     * @return serialized did document
+     */
+    @Override
+    public RenderedResource getRenderedParticipantDidDocument(String id) {
+
+        return renderedDidDocumentRequestTimer.lookup(renderedDidDocumentCache, id,
+            key -> lastKnownGoodDidDocuments.load(key, this::loadRenderedParticipantDidDocument),
+            e -> lastKnownGoodDidDocuments.recover(id, e));
+    }
+
+    /**
+     * Get the serialized common DID document for the federation.
+     *
+     * @return serialized federation did document
+     */
+    @Override
+    public RenderedResource getRenderedCommonDidDocument() {
+
+        return renderedCommonDidDocument;
+    }
+
+    /**
+     * Render the DID document of the given participant and store it in the entity together with the fingerprint of the
+     * current rendering settings. If the DID document cannot be built, no document is stored and requests fall back to
+     * building it on demand, which reports the error.
+     *
+     * @param participantDidDataEntity participant to render the DID document for
+     */
+    @Override
+    public void materializeParticipantDidDocument(ParticipantDidDataEntity participantDidDataEntity) {
+
+        String didDocument = null;
+        try {
+            didDocument = objectMapper.writeValueAsString(buildParticipantDidDocument(participantDidDataEntity));
+        } catch (DidDocumentGenerationException | JsonProcessingException e) {
+            log.warn("Failed to render DID document for participant with id {}: {}",
+                participantDidDataEntity.getParticipantId(), e.getMessage());
+        }
+        participantDidDataEntity.setDidDocument(didDocument);
+        participantDidDataEntity.setDidDocumentFingerprint(didDocumentFingerprint);
+    }
+
+    /**
+     * Get the fingerprint of the settings that stored DID documents are rendered with.
+     *
+     * @return fingerprint of the rendering settings
+     */
+    @Override
+    public String getDidDocumentFingerprint() {
+
+        return didDocumentFingerprint;
+    }
+
+    /**
+     * Remove the cached DID document of a participant once a change to its identity was committed. Runs before other
+     * listeners of the event, so they already read the changed document.
+     *
+     * @param event change event of the participant
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onParticipantDidChanged(ParticipantDidChangedEvent event) {
+
+        didDocumentCache.invalidate(event.participantId());
+        renderedDidDocumentCache.invalidate(event.participantId());
+        lastKnownGoodDidDocuments.invalidate(event.participantId());
+    }
+
+    /**
+     * Remove all cached DID documents once changes of other nodes may have been missed.
+     *
+     * @param event event that any participant may have changed
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAllParticipantsChanged(AllParticipantsChangedEvent event) {
+
+        evictAll();
+    }
+
+    /**
+     * Remove all cached DID documents. The last known good versions that are served while the database is unavailable
+     * are kept.
+     */
+    public void evictAll() {
+
+        didDocumentCache.invalidateAll();
+        renderedDidDocumentCache.invalidateAll();
+    }
+
+    /**
+     * Register the timers of DID document requests, database fetches and builds, and the number of stale DID documents
+     * that were served while the database was unavailable.
+     *
+     * @param registry registry to bind the metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        didDocumentRequestTimer.bindTo(registry);
+        renderedDidDocumentRequestTimer.bindTo(registry);
+        participantFetchTimer.bindTo(registry);
+        storedDidDocumentFetchTimer.bindTo(registry);
+        didDocumentBuildTimer.bindTo(registry);
+
+        FunctionCounter.builder("stale.responses", lastKnownGoodDidDocuments, LastKnownGoodCache::getStaleResponseCount)
+            .tag("type", "did-document")
+            .description("Last known good resources served while the database was unavailable").register(registry);
+    }
+
+    /**
+     * Serialize a DID document to the UTF-8 encoded JSON that is sent to clients.
+     *
+     * @param didDocument did document to serialize
+     * @param lastModified time of the last modification of the underlying data
+     * @return serialized did document
+     */
+    private RenderedResource render(DidDocument didDocument, Instant lastModified) {
+
+        try {
+            return new RenderedResource(objectMapper.writeValueAsBytes(didDocument), lastModified);
+        } catch (JsonProcessingException e) {
+            throw new DidDocumentGenerationException("Failed to serialize DID document: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the participant data from the database and build the DID document from it.
+     *
+     * @param id id of the participant
+     * @return did document
+     */
+    private DidDocument loadParticipantDidDocument(String id) {
+
+        return buildParticipantDidDocument(getParticipantEntity(id));
+    }
+
+    /**
+     * Load the stored DID document of the participant from the database. If no up-to-date DID document is stored yet,
+     * the participant data is loaded and the DID document is rendered from it, reusing an already cached DID document
+     * of the participant.
+     *
+     * @param id id of the participant
+     * @return serialized did document
+     */
+    private RenderedResource loadRenderedParticipantDidDocument(String id) {
+
+        String didWeb = didWebUrlService.getDidWebForParticipant(id);
+        UUID participantId = getHostedParticipantId(id);
+
+        log.info("Retrieving stored DID document for participant with DID: {}", didWeb);
+
+        MaterializedDidDocument materialized = participantId == null ? null : storedDidDocumentFetchTimer.time(
+            () -> participantDidDataRepository.findMaterializedDidDocumentByParticipantId(participantId));
+
+        if (materialized == null) {
+            if (participantId != null) {
+                participantFilterService.recordFalsePositive();
+            }
+            throw new ParticipantNotFoundException("Participant with DID " + didWeb + " could not be found.");
+        }
+
+        if (materialized.getDidDocument() != null && didDocumentFingerprint.equals(
+            materialized.getDidDocumentFingerprint())) {
+            return new RenderedResource(materialized.getDidDocument().getBytes(StandardCharsets.UTF_8),
+                materialized.getUpdatedAt());
+        }
+
+        ParticipantDidDataEntity participantDidDataEntity = getParticipantEntity(id);
+        DidDocument didDocument = didDocumentCache.get(id,
+            key -> buildParticipantDidDocument(participantDidDataEntity));
+        return render(didDocument, participantDidDataEntity.getUpdatedAt());
+    }
+
+    private ParticipantDidDataEntity getParticipantEntity(String id) {
+
         String didWeb = didWebUrlService.getDidWebForParticipant(id);
 
         log.info("Retrieving DID document for participant with DID: {}", didWeb);
 
-        ParticipantDidDataEntity participantDidDataEntity = participantDidDataRepository.findByDid(didWeb);
+        UUID participantId = getHostedParticipantId(id);
+        ParticipantDidDataEntity participantDidDataEntity = participantId == null ? null
+            : participantFetchTimer.time(() -> participantDidDataRepository.findByParticipantId(participantId));
 
         if (participantDidDataEntity == null) {
+            if (participantId != null) {
+                participantFilterService.recordFalsePositive();
+            }
             throw new ParticipantNotFoundException("Participant with DID " + didWeb + " could not be found.");
         }
 
+        return participantDidDataEntity;
+    }
+
+    /**
+     * Parse the given participant id and check whether the participant might be hosted by this service.
+     *
+     * @param id id of the participant
+     * @return parsed participant id or null if the participant is definitely not hosted
+     */
+    private UUID getHostedParticipantId(String id) {
+
+        UUID participantId = DidUtils.parseParticipantId(id);
+        return participantId != null && participantFilterService.mightExist(participantId) ? participantId : null;
+    }
+
+    private DidDocument buildParticipantDidDocument(ParticipantDidDataEntity participantDidDataEntity) {
+
+        return didDocumentBuildTimer.time(() -> {
+            try {
+                return buildDidDocumentFromEntity(
+                    didWebUrlService.getDidWebForParticipant(participantDidDataEntity.getParticipantId()),
+                    participantDidDataEntity);
+            } catch (Exception e) {
+                throw new DidDocumentGenerationException(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Compute a fingerprint of all settings that affect the rendered participant DID documents apart from the
+     * participant data itself.
+     *
+     * @return fingerprint of the rendering settings
+     */
+    private String computeDidDocumentFingerprint() {
+
+        StringBuilder settings = new StringBuilder(didWebUrlService.getCommonDidWeb());
+        if (commonVmEnabled) {
+            settings.append('\n').append(commonVmId).append('\n').append(certificateService.getCommonCertificate());
+        }
+
         try {
-            return buildDidDocumentFromEntity(participantDidDataEntity);
-        } catch (Exception e) {
-            throw new DidDocumentGenerationException(e.getMessage());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(settings.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this runtime", e);
         }
     }
 
@@ -96,26 +401,51 @@ public class DidDocumentServiceImpl implements DidDocumentService {
     @Override
     public DidDocument getCommonDidDocument() {
 
+        return commonDidDocument;
+    }
+
+    /**
+     * Get the time the common DID document was last modified. It is the start of the validity of the common
+     * certificate, so all nodes report the same time, also after a restart. Without a common verification method no
+     * time is reported and clients revalidate by the ETag only.
+     *
+     * @return last modification of the common DID document or null if unknown
+     */
+    private Instant getCommonDidDocumentLastModified() {
+
+        if (!commonVmEnabled) {
+            return null;
+        }
         try {
-            ParticipantDidDataEntity federationCert = new ParticipantDidDataEntity();
-            federationCert.setDid(didWebUrlService.getCommonDidWeb());
-            return buildDidDocumentFromEntity(federationCert);
-        } catch (PemConversionException e) {
-            throw new DidDocumentGenerationException("Failed to build did.json for Federation: " + e.getMessage());
+            X509Certificate certificate = certificateService.convertPemStringToCertificate(
+                certificateService.getCommonCertificate());
+            return certificate == null ? null : certificate.getNotBefore().toInstant();
+        } catch (CertificateException e) {
+            log.warn("Failed to read the validity of the common certificate: {}", e.getMessage());
+            return null;
         }
+    }
+
+    /**
+     * Build the common DID document for the federation. It does not change at runtime and is therefore only built
+     * once.
+     *
+     * @return federation did document
+     */
+    private DidDocument buildCommonDidDocument() {
 
+        return buildDidDocumentFromEntity(didWebUrlService.getCommonDidWeb(), new ParticipantDidDataEntity());
     }
 
     /**
      * Given a database entry for a participant, build the corresponding did document.
      *
+     * @param didWebParticipant did-web of the participant
      * @param participantDidDataEntity participant data to build the did document for
      * @return JSON string representation of the did document
      */
-    private DidDocument buildDidDocumentFromEntity(ParticipantDidDataEntity participantDidDataEntity) {
-
-        // get did identifier from db data
-        String didWebParticipant = participantDidDataEntity.getDid();
+    private DidDocument buildDidDocumentFromEntity(String didWebParticipant,
+        ParticipantDidDataEntity participantDidDataEntity) {
 
         // build did document
         DidDocument didDocument = new DidDocument();
@@ -126,32 +456,50 @@ public class DidDocumentServiceImpl implements DidDocumentService {
             String certificateUrl = DidUtils.getDidDocumentUri(didWebParticipant)
                 .replace(DidUtils.DID_DOCUMENT_FILE, vmEntity.getCertificateId() + ".pem");
             String verificationMethodId = didWebParticipant + "#" + vmEntity.getCertificateId();
-            try {
+            PublicJwk storedJwk = VerificationMethodKeys.getStoredPublicJwk(vmEntity);
+            if (storedJwk != null) {
+                storedJwk.setX5u(certificateUrl);
                 didDocument.getVerificationMethod().add(
-                    getVerificationMethod(didWebParticipant, verificationMethodId, certificateUrl,
-                        vmEntity.getCertificate()));
-            } catch (PemConversionException e) {
-                throw new DidDocumentGenerationException(
-                    "Failed to convert certificate to verification method: " + e.getMessage());
+                    VerificationMethod.builder().id(verificationMethodId).controller(didWebParticipant)
+                        .publicKeyJwk(storedJwk).build());
+            } else {
+                // JWK components were not extracted yet, derive them from the certificate
+                try {
+                    didDocument.getVerificationMethod().add(
+                        getVerificationMethod(didWebParticipant, verificationMethodId, certificateUrl,
+                            vmEntity.getCertificate()));
+                } catch (PemConversionException e) {
+                    throw new DidDocumentGenerationException(
+                        "Failed to convert certificate to verification method: " + e.getMessage());
+                }
             }
-
         }
         if (commonVmEnabled) {
             // add common federation verification method
             String commonVerificationMethodId = didWebParticipant + "#" + commonVmId;
-            didDocument.getVerificationMethod().add(getCommonVerificationMethod(commonVerificationMethodId));
+            didDocument.getVerificationMethod()
+                .add(commonVerificationMethodTemplate.toBuilder().id(commonVerificationMethodId).build());
         }
 
         return didDocument;
     }
 
-    private VerificationMethod getCommonVerificationMethod(String verificationMethodId) {
+    /**
+     * Build the common verification method from the common certificate once. Only the id differs between the DID
+     * documents it is added to, so the documents share the parsed public key of the template.
+     *
+     * @return common verification method without id
+     */
+    private VerificationMethod buildCommonVerificationMethodTemplate() {
 
         String controller = didWebUrlService.getCommonDidWeb();
         String certificateUrl = DidUtils.getDidDocumentUri(didWebUrlService.getCommonDidWeb())
             .replace(DidUtils.DID_DOCUMENT_FILE, DidUtils.COMMON_CERTIFICATE_FILE);
-        return getVerificationMethod(controller, verificationMethodId, certificateUrl,
-            certificateService.getCommonCertificate());
+        try {
+            return getVerificationMethod(controller, null, certificateUrl, certificateService.getCommonCertificate());
+        } catch (PemConversionException e) {
+            throw new DidDocumentGenerationException("Failed to build did.json for Federation: " + e.getMessage());
+        }
     }
 
     /**
@@ -171,31 +519,16 @@ public class DidDocumentServiceImpl implements DidDocumentService {
         vm.setId(verificationMethodId);
         vm.setController(controller);
 
-        // load certificate from string
-        X509Certificate x509Certificate;
+        // get JWK derived from the certificate
+        PublicJwk certificateJwk;
         try {
-            x509Certificate = certificateService.convertPemStringToCertificate(certificateString);
+            certificateJwk = certificateService.getPublicJwk(certificateString);
         } catch (CertificateException e) {
             throw new PemConversionException("Certificate conversion failed: " + e.getMessage());
         }
 
-        // load public key from certificate and build parameters for JWK
-        RSAPublicKey rsaPublicKey = (RSAPublicKey) x509Certificate.getPublicKey();
-        String e = Base64.getUrlEncoder().encodeToString(rsaPublicKey.getPublicExponent().toByteArray());
-        String n = Base64.getUrlEncoder().encodeToString(rsaPublicKey.getModulus().toByteArray());
-
-        // build JWK for VM
-        PublicJwk publicKeyJwk = new PublicJwk();
-        publicKeyJwk.setKty("RSA");
-        publicKeyJwk.setN(n);
-        publicKeyJwk.setE(e);
-        publicKeyJwk.setAlg("PS256");
-
-        // set url reference to certificate in JWK
-        publicKeyJwk.setX5u(certificateUrl);
-
-        // set JWK in VM
-        vm.setPublicKeyJwk(publicKeyJwk);
+        // set url reference to certificate in a copy of the shared JWK and set it in VM
+        vm.setPublicKeyJwk(certificateJwk.toBuilder().x5u(certificateUrl).build());
 
         return vm;
     }
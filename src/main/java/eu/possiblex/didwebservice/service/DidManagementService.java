@@ -17,9 +17,12 @@
 package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 
+import java.util.List;
+
 public interface DidManagementService {
     /**
      * Generates a did:web, a key pair and certificate. Returns the did:web and private key.
@@ -29,6 +32,15 @@ public interface DidManagementService {
      */
     ParticipantDidTo generateParticipantDidWeb(ParticipantDidCreateRequestTo request);
 
+    /**
+     * Generates a did:web for each of the given requests. Each request is validated on its own, so invalid requests do
+     * not prevent the others from being created.
+     *
+     * @param requests with information needed for certificate generation
+     * @return result of each request in the order of the requests
+     */
+    List<ParticipantDidCreateResultTo> generateParticipantDidWebs(List<ParticipantDidCreateRequestTo> requests);
+
     /**
      * Updates an existing did:web with new content.
      *
@@ -37,6 +49,15 @@ public interface DidManagementService {
      */
     ParticipantDidTo updateParticipantDidWeb(ParticipantDidUpdateRequestTo request);
 
+    /**
+     * Resolves an alias to the did:web identity that lists it. If several identities list the same alias, the one
+     * created first is returned.
+     *
+     * @param alias alias to resolve
+     * @return dto containing the did:web that has the alias
+     */
+    ParticipantDidTo getParticipantDidWebByAlias(String alias);
+
     /**
      * Removes an existing did:web if it exists.
      *
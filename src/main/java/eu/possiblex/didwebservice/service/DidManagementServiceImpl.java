@@ -17,26 +17,38 @@
 package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.RequestArgumentException;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
-public class DidManagementServiceImpl implements DidManagementService {
+public class DidManagementServiceImpl implements DidManagementService, MeterBinder {
 
     private final ParticipantDidDataRepository participantDidDataRepository;
 
@@ -44,20 +56,55 @@ public class DidManagementServiceImpl implements DidManagementService {
 
     private final DidWebUrlService didWebUrlService;
 
+    private final DidDocumentService didDocumentService;
+
     private final boolean commonVmEnabled;
 
     private final String commonVmId;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int bulkChunkSize;
+
+    private final ForkJoinPool bulkValidationPool;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutcomeTimer createTimer = operationTimer("create");
+
+    private final OutcomeTimer updateTimer = operationTimer("update");
+
+    private final OutcomeTimer resolveAliasTimer = operationTimer("resolve-alias");
+
+    private final OutcomeTimer removeTimer = operationTimer("remove");
+
+    private final OutcomeTimer bulkCreateTimer = operationTimer("bulk-create");
+
     public DidManagementServiceImpl(@Value("${common-verification-method.enabled:#{null}}") boolean commonVmEnabled,
         @Value("${common-verification-method.id:#{null}}") String commonVmId,
+        @Value("${bulk-create.chunk-size:100}") int bulkChunkSize,
+        @Value("${bulk-create.parallelism:4}") int bulkParallelism,
         @Autowired ParticipantDidDataRepository participantDidDataRepository,
-        @Autowired CertificateService certificateService, @Autowired DidWebUrlService didWebUrlService) {
+        @Autowired CertificateService certificateService, @Autowired DidWebUrlService didWebUrlService,
+        @Autowired DidDocumentService didDocumentService, @Autowired ApplicationEventPublisher eventPublisher,
+        @Autowired PlatformTransactionManager transactionManager) {
 
         this.commonVmEnabled = commonVmEnabled;
         this.commonVmId = commonVmId;
         this.participantDidDataRepository = participantDidDataRepository;
         this.certificateService = certificateService;
         this.didWebUrlService = didWebUrlService;
+        this.didDocumentService = didDocumentService;
+        this.eventPublisher = eventPublisher;
+        this.bulkChunkSize = bulkChunkSize;
+        this.bulkValidationPool = new ForkJoinPool(bulkParallelism);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        bulkValidationPool.shutdown();
     }
 
     /**
@@ -69,17 +116,66 @@ public class DidManagementServiceImpl implements DidManagementService {
     @Transactional
     public ParticipantDidTo generateParticipantDidWeb(ParticipantDidCreateRequestTo request) {
 
-        String certificateSubject = request.getSubject();
+        return createTimer.time(() -> {
+            UUID participantId = generateParticipantId(requireSubject(request));
 
-        if (certificateSubject == null || certificateSubject.isBlank()) {
-            throw new RequestArgumentException("Missing or empty subject name.");
-        }
+            ParticipantDidDataEntity entity = storeDidDocument(participantId, request.getCertificates(),
+                request.getAliases());
+
+            return toParticipantDidTo(entity);
+        });
+    }
+
+    /**
+     * Generates a did:web entry for each request. As for a single creation, requests of participants that exist
+     * already return the existing identity without validating their certificates. The other requests are validated
+     * and their certificates parsed in parallel, the valid ones are then stored in chunks of one transaction each, so the inserts of a chunk are sent to
+     * the database in batches. If a chunk fails, e.g. because one of its participants was created concurrently, its
+     * requests are stored one by one instead.
+     *
+     * @param requests with information needed for certificate generation
+     * @return result of each request in the order of the requests
+     */
+    @Override
+    public List<ParticipantDidCreateResultTo> generateParticipantDidWebs(List<ParticipantDidCreateRequestTo> requests) {
 
-        String didWeb = generateDidWeb(certificateSubject);
+        return bulkCreateTimer.time(() -> {
+            if (requests == null) {
+                throw new RequestArgumentException("Missing list of requests.");
+            }
 
-        ParticipantDidDataEntity entity = storeDidDocument(didWeb, request.getCertificates(), request.getAliases());
+            List<ParticipantDidCreateRequestTo> nonNullRequests = requests.stream()
+                .map(request -> Objects.requireNonNullElseGet(request, ParticipantDidCreateRequestTo::new)).toList();
+            Set<UUID> existing = findExistingParticipantIds(nonNullRequests);
+
+            List<PreparedParticipant> prepared = bulkValidationPool.submit(
+                () -> IntStream.range(0, nonNullRequests.size()).parallel()
+                    .mapToObj(i -> prepareParticipant(i, nonNullRequests.get(i), existing)).toList()).join();
+
+            ParticipantDidCreateResultTo[] results = new ParticipantDidCreateResultTo[prepared.size()];
+            List<PreparedParticipant> valid = new ArrayList<>();
+            for (int i = 0; i < prepared.size(); i++) {
+                PreparedParticipant participant = prepared.get(i);
+                if (participant.error() != null) {
+                    results[i] = new ParticipantDidCreateResultTo(participant.request().getSubject(),
+                        ParticipantDidCreateResultTo.Status.REJECTED, null, participant.error());
+                } else {
+                    valid.add(participant);
+                }
+            }
 
-        return new ParticipantDidTo(entity.getDid(), getVmIdsFromParticipantEntity(entity), entity.getAliases());
+            for (int start = 0; start < valid.size(); start += bulkChunkSize) {
+                List<PreparedParticipant> chunk = valid.subList(start, Math.min(start + bulkChunkSize, valid.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> storeChunk(chunk, results));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to store chunk of {} participants, storing them one by one: {}", chunk.size(),
+                        e.getMessage());
+                    chunk.forEach(participant -> results[participant.index()] = storeSingle(participant));
+                }
+            }
+            return Arrays.asList(results);
+        });
     }
 
     /**
@@ -91,27 +187,59 @@ public class DidManagementServiceImpl implements DidManagementService {
     @Transactional
     public ParticipantDidTo updateParticipantDidWeb(ParticipantDidUpdateRequestTo request) {
 
-        String didWeb = request.getDid();
+        return updateTimer.time(() -> {
+            String didWeb = request.getDid();
 
-        if (didWeb == null || didWeb.isBlank()) {
-            throw new RequestArgumentException("Missing or empty did.");
-        }
+            if (didWeb == null || didWeb.isBlank()) {
+                throw new RequestArgumentException("Missing or empty did.");
+            }
 
-        ParticipantDidDataEntity entity = participantDidDataRepository.findByDid(didWeb);
+            UUID participantId = didWebUrlService.getParticipantUuidForDidWeb(didWeb);
+            ParticipantDidDataEntity entity = participantId == null ? null
+                : participantDidDataRepository.findByParticipantId(participantId);
 
-        if (entity == null) {
-            throw new ParticipantNotFoundException("Did does not exist in the database.");
-        }
+            if (entity == null) {
+                throw new ParticipantNotFoundException("Did does not exist in the database.");
+            }
 
-        if (request.getAliases() != null) {
-            entity.setAliases(request.getAliases());
-        }
+            if (request.getAliases() != null) {
+                entity.setAliases(request.getAliases());
+            }
 
-        if (request.getCertificates() != null) {
-            entity.setVerificationMethods(getVerificationMethodEntities(request.getCertificates()));
-        }
+            if (request.getCertificates() != null) {
+                entity.setVerificationMethods(getVerificationMethodEntities(request.getCertificates()));
+            }
+
+            entity.setUpdatedAt(Instant.now());
+            didDocumentService.materializeParticipantDidDocument(entity);
+            publishParticipantDidChanged(participantId);
+
+            return toParticipantDidTo(entity);
+        });
+    }
+
+    /**
+     * Resolves an alias to the did:web identity that lists it.
+     *
+     * @param alias alias to resolve
+     * @return dto containing the did:web that has the alias
+     */
+    @Override
+    @Transactional
+    public ParticipantDidTo getParticipantDidWebByAlias(String alias) {
+
+        return resolveAliasTimer.time(() -> {
+            if (alias == null || alias.isBlank()) {
+                throw new RequestArgumentException("Missing or empty alias.");
+            }
 
-        return new ParticipantDidTo(entity.getDid(), getVmIdsFromParticipantEntity(entity), entity.getAliases());
+            List<UUID> participantIds = participantDidDataRepository.findParticipantIdsByAlias(alias);
+            if (participantIds.isEmpty()) {
+                throw new ParticipantNotFoundException("No did with alias " + alias + " exists in the database.");
+            }
+
+            return toParticipantDidTo(participantDidDataRepository.findByParticipantId(participantIds.get(0)));
+        });
     }
 
     /**
@@ -123,30 +251,184 @@ public class DidManagementServiceImpl implements DidManagementService {
     @Override
     public void removeParticipantDidWeb(String did) {
 
-        if (did == null || did.isBlank()) {
-            throw new RequestArgumentException("Missing or empty did.");
-        }
+        removeTimer.time(() -> {
+            if (did == null || did.isBlank()) {
+                throw new RequestArgumentException("Missing or empty did.");
+            }
+
+            deleteDidDocument(did);
+        });
+    }
+
+    /**
+     * Register the timers of the management operations.
+     *
+     * @param registry registry to bind the metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
 
-        deleteDidDocument(did);
+        createTimer.bindTo(registry);
+        updateTimer.bindTo(registry);
+        resolveAliasTimer.bindTo(registry);
+        removeTimer.bindTo(registry);
+        bulkCreateTimer.bindTo(registry);
     }
 
-    private List<String> getVmIdsFromParticipantEntity(ParticipantDidDataEntity entity) {
+    private static OutcomeTimer operationTimer(String operation) {
 
+        return new OutcomeTimer("did.management.operations", "Time to run a management operation on a participant",
+            Tags.of("operation", operation), OutcomeTimer.CALL_OUTCOMES);
+    }
+
+    private ParticipantDidTo toParticipantDidTo(ParticipantDidDataEntity entity) {
+
+        String did = didWebUrlService.getDidWebForParticipant(entity.getParticipantId());
         List<String> verificationMethodIds = new ArrayList<>(
-            entity.getVerificationMethods().stream().map(vm -> entity.getDid() + "#" + vm.getCertificateId()).toList());
+            entity.getVerificationMethods().stream().map(vm -> did + "#" + vm.getCertificateId()).toList());
         if (commonVmEnabled) {
-            verificationMethodIds.add(entity.getDid() + "#" + commonVmId);
+            verificationMethodIds.add(did + "#" + commonVmId);
         }
-        return verificationMethodIds;
+        return new ParticipantDidTo(did, verificationMethodIds, entity.getAliases());
+    }
+
+    private String requireSubject(ParticipantDidCreateRequestTo request) {
+
+        String certificateSubject = request.getSubject();
+        if (certificateSubject == null || certificateSubject.isBlank()) {
+            throw new RequestArgumentException("Missing or empty subject name.");
+        }
+        return certificateSubject;
+    }
+
+    /**
+     * Find the participants of a bulk creation that exist already, querying the database once per chunk.
+     *
+     * @param requests requests of the bulk creation
+     * @return ids of the participants that exist already
+     */
+    private Set<UUID> findExistingParticipantIds(List<ParticipantDidCreateRequestTo> requests) {
+
+        List<UUID> participantIds = requests.stream().map(ParticipantDidCreateRequestTo::getSubject)
+            .filter(subject -> subject != null && !subject.isBlank()).map(this::generateParticipantId).distinct()
+            .toList();
+        Set<UUID> existing = new HashSet<>();
+        for (int start = 0; start < participantIds.size(); start += bulkChunkSize) {
+            existing.addAll(participantDidDataRepository.findExistingParticipantIds(
+                participantIds.subList(start, Math.min(start + bulkChunkSize, participantIds.size()))));
+        }
+        return existing;
+    }
+
+    /**
+     * Validate a request of a bulk creation and parse its certificates. The certificates of participants that exist
+     * already are not validated, as they are not stored.
+     *
+     * @param index position of the request in the bulk creation
+     * @param request request to validate
+     * @param existing ids of the participants that exist already
+     * @return participant ready to be stored or the reason it was rejected
+     */
+    private PreparedParticipant prepareParticipant(int index, ParticipantDidCreateRequestTo request,
+        Set<UUID> existing) {
+
+        try {
+            UUID participantId = generateParticipantId(requireSubject(request));
+            if (existing.contains(participantId)) {
+                return new PreparedParticipant(index, request, participantId, null, null);
+            }
+            return new PreparedParticipant(index, request, participantId,
+                getVerificationMethodEntities(request.getCertificates()), null);
+        } catch (RequestArgumentException e) {
+            return new PreparedParticipant(index, request, null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Store the participants of a chunk that do not exist yet within the current transaction. Participants that exist
+     * already, also those listed more than once, are returned as they are. Participants that were removed since their
+     * request was prepared have their certificates validated now.
+     */
+    private void storeChunk(List<PreparedParticipant> chunk, ParticipantDidCreateResultTo[] results) {
+
+        Set<UUID> existing = new HashSet<>(participantDidDataRepository.findExistingParticipantIds(
+            chunk.stream().map(PreparedParticipant::participantId).toList()));
+        Map<UUID, ParticipantDidDataEntity> created = new LinkedHashMap<>();
+        ParticipantDidCreateResultTo[] chunkResults = new ParticipantDidCreateResultTo[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            PreparedParticipant participant = chunk.get(i);
+            ParticipantDidDataEntity entity = created.get(participant.participantId());
+            if (entity == null && !existing.contains(participant.participantId())) {
+                List<VerificationMethodEntity> verificationMethods = participant.verificationMethods() != null
+                    ? participant.verificationMethods()
+                    : getVerificationMethodEntities(participant.request().getCertificates());
+                entity = createParticipant(participant.participantId(), verificationMethods,
+                    participant.request().getAliases());
+                created.put(participant.participantId(), entity);
+                chunkResults[i] = toCreateResult(participant, ParticipantDidCreateResultTo.Status.CREATED, entity);
+            } else {
+                if (entity == null) {
+                    entity = participantDidDataRepository.findByParticipantId(participant.participantId());
+                }
+                chunkResults[i] = toCreateResult(participant, ParticipantDidCreateResultTo.Status.EXISTING, entity);
+            }
+        }
+
+        participantDidDataRepository.saveAll(created.values());
+        created.keySet().forEach(this::publishParticipantDidChanged);
+        for (int i = 0; i < chunk.size(); i++) {
+            results[chunk.get(i).index()] = chunkResults[i];
+        }
+    }
+
+    /**
+     * Store a participant of a bulk creation in a transaction of its own, as the single creation does.
+     */
+    private ParticipantDidCreateResultTo storeSingle(PreparedParticipant participant) {
+
+        ParticipantDidCreateRequestTo request = participant.request();
+        try {
+            return transactionTemplate.execute(status -> {
+                boolean exists = participantDidDataRepository.existsByParticipantId(participant.participantId());
+                ParticipantDidDataEntity entity = storeDidDocument(participant.participantId(),
+                    request.getCertificates(), request.getAliases());
+                return toCreateResult(participant, exists ? ParticipantDidCreateResultTo.Status.EXISTING
+                    : ParticipantDidCreateResultTo.Status.CREATED, entity);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to store participant {}: {}", participant.participantId(), e.getMessage());
+            return new ParticipantDidCreateResultTo(request.getSubject(), ParticipantDidCreateResultTo.Status.REJECTED,
+                null, e.getMessage());
+        }
+    }
+
+    private ParticipantDidCreateResultTo toCreateResult(PreparedParticipant participant,
+        ParticipantDidCreateResultTo.Status status, ParticipantDidDataEntity entity) {
+
+        return new ParticipantDidCreateResultTo(participant.request().getSubject(), status, toParticipantDidTo(entity),
+            null);
     }
 
     private void deleteDidDocument(String did) {
 
-        if (participantDidDataRepository.findByDid(did) == null) {
+        UUID participantId = didWebUrlService.getParticipantUuidForDidWeb(did);
+        if (participantId == null || !participantDidDataRepository.existsByParticipantId(participantId)) {
             log.info("Did {} does not exist in the database.", did);
             return;
         }
-        participantDidDataRepository.deleteByDid(did);
+        participantDidDataRepository.deleteByParticipantId(participantId);
+        publishParticipantDidChanged(participantId);
+    }
+
+    /**
+     * Notify listeners that the identity with the given id has changed. Listeners bound to the transaction receive
+     * the event once the change has been committed.
+     *
+     * @param participantId id of the changed identity
+     */
+    private void publishParticipantDidChanged(UUID participantId) {
+
+        eventPublisher.publishEvent(new ParticipantDidChangedEvent(participantId.toString()));
     }
 
     private List<VerificationMethodEntity> getVerificationMethodEntities(Map<String, String> certificates) {
@@ -175,46 +457,75 @@ public class DidManagementServiceImpl implements DidManagementService {
             VerificationMethodEntity verificationMethodEntity = new VerificationMethodEntity();
             verificationMethodEntity.setCertificateId(certEntry.getKey());
             verificationMethodEntity.setCertificate(certEntry.getValue());
+            VerificationMethodKeys.storePublicJwk(certificateService, verificationMethodEntity);
             verificationMethods.add(verificationMethodEntity);
         }
         return verificationMethods;
     }
 
     /**
-     * generate a did-web identifier based on the given seed.
+     * generate a participant id that the did-web identifier is composed of based on the given seed.
      *
-     * @param seed seed to generate the did-web from
-     * @return generated did-web identifier
+     * @param seed seed to generate the participant id from
+     * @return generated participant id
      */
-    private String generateDidWeb(String seed) {
+    private UUID generateParticipantId(String seed) {
 
-        String uuid = UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8)).toString();
-        return didWebUrlService.getDidWebForParticipant(uuid);
+        return UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Create a new database entry for the given did if it does not already exist. If it already exists, log it and do
-     * nothing.
+     * Create a new database entry for the given participant if it does not already exist. If it already exists, log it
+     * and do nothing.
      *
-     * @param did did to store in the database
+     * @param participantId id of the participant to store in the database
      */
-    private ParticipantDidDataEntity storeDidDocument(String did, Map<String, String> certificates,
+    private ParticipantDidDataEntity storeDidDocument(UUID participantId, Map<String, String> certificates,
         List<String> aliases) {
 
-        ParticipantDidDataEntity data = participantDidDataRepository.findByDid(did);
+        ParticipantDidDataEntity data = participantDidDataRepository.findByParticipantId(participantId);
         if (data != null) {
-            log.info("Did {} already exists in the database.", did);
+            log.info("Participant {} already exists in the database.", participantId);
             return data;
         }
-        data = new ParticipantDidDataEntity();
-        data.setDid(did);
+        data = createParticipant(participantId, getVerificationMethodEntities(certificates), aliases);
+
+        data = participantDidDataRepository.save(data);
+        publishParticipantDidChanged(participantId);
+        return data;
+    }
+
+    /**
+     * Create a new participant with its DID document rendered, without storing it.
+     */
+    private ParticipantDidDataEntity createParticipant(UUID participantId,
+        List<VerificationMethodEntity> verificationMethods, List<String> aliases) {
+
+        ParticipantDidDataEntity data = new ParticipantDidDataEntity();
+        data.setParticipantId(participantId);
+        data.setCreatedAt(Instant.now());
+        data.setUpdatedAt(data.getCreatedAt());
 
-        data.setVerificationMethods(getVerificationMethodEntities(certificates));
+        data.setVerificationMethods(verificationMethods);
 
         if (aliases != null) {
             data.setAliases(aliases);
         }
 
-        return participantDidDataRepository.save(data);
+        didDocumentService.materializeParticipantDidDocument(data);
+        return data;
+    }
+
+    /**
+     * Request of a bulk creation after validation.
+     *
+     * @param index position of the request in the bulk creation
+     * @param request original request
+     * @param participantId id of the participant, null if rejected
+     * @param verificationMethods verification methods of the parsed certificates, null if rejected or existing
+     * @param error reason the request was rejected, null if valid
+     */
+    private record PreparedParticipant(int index, ParticipantDidCreateRequestTo request, UUID participantId,
+                                       List<VerificationMethodEntity> verificationMethods, String error) {
     }
 }
@@ -16,8 +16,18 @@
 
 package eu.possiblex.didwebservice.service;
 
+import java.util.UUID;
+
 public interface DidWebUrlService {
     String getDidWebForParticipant(String id);
 
+    String getDidWebForParticipant(UUID participantId);
+
     String getCommonDidWeb();
+
+    String getParticipantsDidWeb();
+
+    String getParticipantIdForDidWeb(String didWeb);
+
+    UUID getParticipantUuidForDidWeb(String didWeb);
 }
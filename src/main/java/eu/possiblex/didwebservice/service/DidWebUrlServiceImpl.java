@@ -16,10 +16,13 @@
 
 package eu.possiblex.didwebservice.service;
 
+import eu.possiblex.didwebservice.utils.DidUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 @Service
 @Slf4j
 public class DidWebUrlServiceImpl implements DidWebUrlService {
@@ -40,7 +43,19 @@ public class DidWebUrlServiceImpl implements DidWebUrlService {
     @Override
     public String getDidWebForParticipant(String id) {
 
-        return getCommonDidWeb() + ":participant:" + id;
+        return getParticipantsDidWeb() + ":" + id;
+    }
+
+    /**
+     * Build the full did-web path for a given participant id.
+     *
+     * @param participantId participant id
+     * @return did-web path
+     */
+    @Override
+    public String getDidWebForParticipant(UUID participantId) {
+
+        return getDidWebForParticipant(participantId.toString());
     }
 
     /**
@@ -53,4 +68,43 @@ public class DidWebUrlServiceImpl implements DidWebUrlService {
 
         return "did:web:" + didWebDomain.replaceFirst(":", "%3A");
     }
+
+    /**
+     * Get the did-web path below which the did-webs of all participants of the currently configured domain are located.
+     *
+     * @return did-web path of the participants
+     */
+    @Override
+    public String getParticipantsDidWeb() {
+
+        return getCommonDidWeb() + ":participant";
+    }
+
+    /**
+     * Extract the participant id from a participant did-web of the currently configured domain.
+     *
+     * @param didWeb participant did-web
+     * @return participant id or null if the did-web does not belong to a participant of this domain
+     */
+    @Override
+    public String getParticipantIdForDidWeb(String didWeb) {
+
+        String participantPrefix = getDidWebForParticipant("");
+        if (didWeb == null || !didWeb.startsWith(participantPrefix)) {
+            return null;
+        }
+        return didWeb.substring(participantPrefix.length());
+    }
+
+    /**
+     * Extract the participant id from a participant did-web of the currently configured domain.
+     *
+     * @param didWeb participant did-web
+     * @return participant id or null if the did-web does not belong to a participant of this domain
+     */
+    @Override
+    public UUID getParticipantUuidForDidWeb(String didWeb) {
+
+        return DidUtils.parseParticipantId(getParticipantIdForDidWeb(didWeb));
+    }
 }
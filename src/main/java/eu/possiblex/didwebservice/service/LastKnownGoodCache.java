@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
+import eu.possiblex.didwebservice.utils.RepositoryUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the last successfully loaded version of publicly served resources, so they can still be served while the
+ * database is unavailable. Entries are removed when the underlying data changes, so a revoked certificate or a deleted
+ * participant is never served from here. As in {@link ReadThroughCache}, a resource loaded concurrently to an
+ * invalidation is not kept.
+ *
+ * @param <K> key type
+ */
+@Slf4j
+class LastKnownGoodCache<K> {
+
+    private final Cache<K, RenderedResource> cache;
+
+    private final AtomicLong staleResponses = new AtomicLong();
+
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    /**
+     * Create a new cache, or a disabled one that never serves stale resources if the maximum size is zero.
+     *
+     * @param maxSize maximum number of kept resources
+     * @param maxAge time after which a kept resource is no longer served
+     */
+    LastKnownGoodCache(long maxSize, Duration maxAge) {
+
+        this.cache = maxSize > 0 ? Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(maxAge).build() : null;
+    }
+
+    /**
+     * Load a resource and keep it as last known good version, unless it was invalidated while loading.
+     *
+     * @param key key of the resource
+     * @param loader function to load the resource
+     * @return the loaded resource
+     */
+    RenderedResource load(K key, Function<K, RenderedResource> loader) {
+
+        long epoch = invalidationEpoch.get();
+        RenderedResource resource = loader.apply(key);
+        if (cache != null) {
+            cache.put(key, resource);
+            if (invalidationEpoch.get() != epoch) {
+                // the resource might have been changed or removed while loading, it must not be served later
+                cache.invalidate(key);
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Recover from a failed load. If the load failed because the database is unavailable and a last known good version
+     * of the resource is kept, it is returned marked as stale, otherwise the exception is rethrown.
+     *
+     * @param key key of the resource
+     * @param e exception of the failed load
+     * @return stale resource
+     */
+    RenderedResource recover(K key, RuntimeException e) {
+
+        RenderedResource lastKnownGood = cache != null && RepositoryUtils.isRepositoryUnavailable(e)
+            ? cache.getIfPresent(key) : null;
+        if (lastKnownGood == null) {
+            throw e;
+        }
+        staleResponses.incrementAndGet();
+        log.warn("Serving last known good version of {} as the database is unavailable: {}", key, e.getMessage());
+        return lastKnownGood.asStale();
+    }
+
+    /**
+     * Remove the resource with the given key.
+     *
+     * @param key key to remove
+     */
+    void invalidate(K key) {
+
+        invalidationEpoch.incrementAndGet();
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Remove all resources whose key matches the given predicate.
+     *
+     * @param keyPredicate predicate selecting the keys to remove
+     */
+    void invalidateIf(Predicate<K> keyPredicate) {
+
+        invalidationEpoch.incrementAndGet();
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(keyPredicate);
+        }
+    }
+
+    /**
+     * Get the number of stale resources that were served.
+     *
+     * @return number of stale responses
+     */
+    long getStaleResponseCount() {
+
+        return staleResponses.get();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
+import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import eu.possiblex.didwebservice.models.exceptions.RequestArgumentException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Timer of a service operation that is tagged with the outcome of each call. A timer is registered for every possible
+ * outcome, each publishing a percentile histogram so latency percentiles can be aggregated across instances. Calls are
+ * only measured once the timer was bound to a meter registry.
+ */
+class OutcomeTimer implements MeterBinder {
+
+    static final String HIT = "hit";
+
+    static final String MISS = "miss";
+
+    static final String STALE = "stale";
+
+    static final String SUCCESS = "success";
+
+    static final String NOT_FOUND = "not-found";
+
+    static final String INVALID = "invalid";
+
+    static final String ERROR = "error";
+
+    static final List<String> LOOKUP_OUTCOMES = List.of(HIT, MISS, STALE, NOT_FOUND, ERROR);
+
+    static final List<String> CALL_OUTCOMES = List.of(SUCCESS, NOT_FOUND, INVALID, ERROR);
+
+    // cache hits take a few microseconds, the histogram buckets start below them
+    private static final Duration MINIMUM_EXPECTED_DURATION = Duration.ofNanos(10_000);
+
+    private static final Duration MAXIMUM_EXPECTED_DURATION = Duration.ofSeconds(10);
+
+    private final String name;
+
+    private final String description;
+
+    private final Tags tags;
+
+    private final List<String> outcomes;
+
+    private volatile Map<String, Timer> timers = Map.of();
+
+    OutcomeTimer(String name, String description, Tags tags, List<String> outcomes) {
+
+        this.name = name;
+        this.description = description;
+        this.tags = tags;
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * Get the outcome a call that failed with the given exception is recorded with.
+     *
+     * @param e exception the call failed with
+     * @return outcome of the call
+     */
+    static String outcomeOf(RuntimeException e) {
+
+        if (e instanceof ParticipantNotFoundException || e instanceof CertificateNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (e instanceof RequestArgumentException) {
+            return INVALID;
+        }
+        return ERROR;
+    }
+
+    /**
+     * Register a timer for every outcome of the operation. Calls are recorded by the timers of the registry the
+     * operation was bound to last.
+     *
+     * @param registry registry to bind the metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        Map<String, Timer> outcomeTimers = new HashMap<>();
+        for (String outcome : outcomes) {
+            outcomeTimers.put(outcome,
+                Timer.builder(name).description(description).tags(tags).tag("outcome", outcome)
+                    .publishPercentileHistogram().minimumExpectedValue(MINIMUM_EXPECTED_DURATION)
+                    .maximumExpectedValue(MAXIMUM_EXPECTED_DURATION).register(registry));
+        }
+        timers = Map.copyOf(outcomeTimers);
+    }
+
+    /**
+     * Record a call that was started at the given time.
+     *
+     * @param startNanos value of {@link System#nanoTime()} when the call was started
+     * @param outcome outcome of the call
+     */
+    void record(long startNanos, String outcome) {
+
+        Timer timer = timers.get(outcome);
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Time a call whose result is null if the requested data does not exist.
+     *
+     * @param call call to time
+     * @param <T> result type
+     * @return result of the call
+     */
+    <T> T time(Supplier<T> call) {
+
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = call.get();
+            outcome = result != null ? SUCCESS : NOT_FOUND;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            record(start, outcome);
+        }
+    }
+
+    /**
+     * Time a call without a result.
+     *
+     * @param call call to time
+     */
+    void time(Runnable call) {
+
+        time(() -> {
+            call.run();
+            return Boolean.TRUE;
+        });
+    }
+
+    /**
+     * Time a lookup in the given cache, recorded as hit if the value was cached and as miss if it was loaded.
+     *
+     * @param cache cache to look up the value in
+     * @param key key to look up
+     * @param loader function to load the value if it is not cached
+     * @param <K> key type
+     * @param <V> value type
+     * @return cached or freshly loaded value
+     */
+    <K, V> V lookup(ReadThroughCache<K, V> cache, K key, Function<K, V> loader) {
+
+        return lookup(cache, key, loader, e -> {
+            throw e;
+        });
+    }
+
+    /**
+     * Time a lookup in the given cache, recorded as hit if the value was cached, as miss if it was loaded and as stale
+     * if loading failed and the value was recovered by the given fallback.
+     *
+     * @param cache cache to look up the value in
+     * @param key key to look up
+     * @param loader function to load the value if it is not cached
+     * @param fallback function to recover a value if loading failed, rethrows the exception if it can not
+     * @param <K> key type
+     * @param <V> value type
+     * @return cached, freshly loaded or recovered value
+     */
+    <K, V> V lookup(ReadThroughCache<K, V> cache, K key, Function<K, V> loader,
+        Function<RuntimeException, V> fallback) {
+
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            V value = cache.getIfPresent(key);
+            if (value != null) {
+                outcome = HIT;
+                return value;
+            }
+            try {
+                value = cache.get(key, loader);
+                outcome = MISS;
+            } catch (RuntimeException e) {
+                value = fallback.apply(e);
+                outcome = STALE;
+            }
+            return value;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            record(start, outcome);
+        }
+    }
+}
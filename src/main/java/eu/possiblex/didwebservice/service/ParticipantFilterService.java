@@ -0,0 +1,34 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import java.util.UUID;
+
+public interface ParticipantFilterService {
+    /**
+     * Check whether a participant with the given id might be hosted by this service.
+     *
+     * @param participantId id of the participant
+     * @return false if the participant is definitely not hosted, true if it might be
+     */
+    boolean mightExist(UUID participantId);
+
+    /**
+     * Record that a participant which passed the filter was not found in the database.
+     */
+    void recordFalsePositive();
+}
@@ -0,0 +1,301 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.utils.BloomFilter;
+import eu.possiblex.didwebservice.utils.DidUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a Bloom filter of the ids of all hosted participants, so requests for unknown participants can be answered
+ * without a database round-trip. The filter is built once the application is ready and every changed participant is
+ * added to it, also the ones changed on other nodes of the cluster. Deleted participants stay in the filter until it is
+ * rebuilt, which happens periodically and when more participants were added than the filter is sized for. Until the
+ * filter is built, every participant might exist.
+ * <p>
+ * A participant created on another node is only known from the change relayed by {@link ClusterInvalidationRelay}.
+ * The filter therefore only rejects a participant if the relay received all changes since the filter was read from
+ * the database. After an interruption of the relay every participant might exist until the filter is rebuilt. A
+ * participant missing from the filter may also have been created on another node after the relay last received
+ * changes, e.g. since the last poll of the change table, so such misses are confirmed with the database.
+ */
+@Service
+@Slf4j
+public class ParticipantFilterServiceImpl implements ParticipantFilterService, MeterBinder {
+
+    private final boolean enabled;
+
+    private final long expectedParticipants;
+
+    private final double falsePositiveProbability;
+
+    private final Duration rebuildInterval;
+
+    private final ParticipantDidDataRepository participantDidDataRepository;
+
+    private final ClusterInvalidationRelay clusterInvalidationRelay;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private volatile BloomFilter filter;
+
+    // time the participants of the current filter were read from the database
+    private volatile Instant filterReadAt;
+
+    // participants changed while the filter is rebuilt, guarded by this
+    private Set<UUID> changedDuringRebuild;
+
+    public ParticipantFilterServiceImpl(@Value("${participant-filter.enabled:true}") boolean enabled,
+        @Value("${participant-filter.expected-participants:100000}") long expectedParticipants,
+        @Value("${participant-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+        @Value("${participant-filter.rebuild-interval:1h}") Duration rebuildInterval,
+        @Autowired ParticipantDidDataRepository participantDidDataRepository,
+        @Autowired ClusterInvalidationRelay clusterInvalidationRelay,
+        @Autowired @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+
+        this.enabled = enabled;
+        this.expectedParticipants = expectedParticipants;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.rebuildInterval = rebuildInterval;
+        this.participantDidDataRepository = participantDidDataRepository;
+        this.clusterInvalidationRelay = clusterInvalidationRelay;
+        this.taskExecutor = taskExecutor;
+        this.scheduler = enabled && !rebuildInterval.isZero() && !rebuildInterval.isNegative()
+            ? Executors.newSingleThreadScheduledExecutor() : null;
+    }
+
+    /**
+     * Build the filter from the participants in the database once the application is ready and rebuild it
+     * periodically afterward.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (enabled && rebuilding.compareAndSet(false, true)) {
+            rebuild();
+        }
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::rebuildInBackground, rebuildInterval.toMillis(),
+                rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Check whether a participant with the given id might be hosted by this service.
+     *
+     * @param participantId id of the participant
+     * @return false if the participant is definitely not hosted, true if it might be
+     */
+    @Override
+    public boolean mightExist(UUID participantId) {
+
+        BloomFilter currentFilter = filter;
+        if (!enabled || currentFilter == null || currentFilter.mightContain(participantId)) {
+            return true;
+        }
+
+        Instant requestedAt = Instant.now();
+        Instant receivingSince = clusterInvalidationRelay.getReceivingSince();
+        if (receivingSince == null || receivingSince.isAfter(filterReadAt)) {
+            // changes of other nodes may have been missed, a rebuild once they are received again catches up on them
+            if (receivingSince != null) {
+                rebuildInBackground();
+            }
+            return true;
+        }
+
+        Instant receivedUntil = clusterInvalidationRelay.getReceivedUntil();
+        if ((receivedUntil == null || receivedUntil.isBefore(requestedAt))
+            && participantDidDataRepository.existsByParticipantId(participantId)) {
+            // created on another node and not relayed yet, the relayed change adds it to the filter as well
+            synchronized (this) {
+                currentFilter.put(participantId);
+            }
+            return true;
+        }
+        rejections.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record that a participant which passed the filter was not found in the database.
+     */
+    @Override
+    public void recordFalsePositive() {
+
+        if (enabled && filter != null) {
+            falsePositives.incrementAndGet();
+        }
+    }
+
+    /**
+     * Add a changed participant to the filter once the change was committed, ahead of other listeners of the event. If
+     * the filter holds more participants than it is sized for, it is rebuilt in the background.
+     *
+     * @param event change event of the participant
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onParticipantDidChanged(ParticipantDidChangedEvent event) {
+
+        UUID participantId = DidUtils.parseParticipantId(event.participantId());
+        if (!enabled || participantId == null) {
+            return;
+        }
+
+        BloomFilter currentFilter;
+        synchronized (this) {
+            currentFilter = filter;
+            if (currentFilter != null) {
+                currentFilter.put(participantId);
+            }
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(participantId);
+            }
+        }
+
+        if (currentFilter != null && currentFilter.getInsertions() > currentFilter.getExpectedInsertions()) {
+            rebuildInBackground();
+        }
+    }
+
+    private void rebuildInBackground() {
+
+        if (rebuilding.compareAndSet(false, true)) {
+            taskExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Build a new filter from the participants in the database and replace the current one with it. Participants that
+     * change while the database is read are added to the new filter as well.
+     */
+    void rebuild() {
+
+        try {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+
+            Instant readAt = Instant.now();
+            List<UUID> participantIds = participantDidDataRepository.findAllParticipantIds();
+            BloomFilter newFilter = new BloomFilter(Math.max(expectedParticipants, 2L * participantIds.size()),
+                falsePositiveProbability);
+            participantIds.forEach(newFilter::put);
+
+            synchronized (this) {
+                changedDuringRebuild.forEach(newFilter::put);
+                filterReadAt = readAt;
+                filter = newFilter;
+            }
+            log.info("Built participant filter for {} participants.", participantIds.size());
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Register the rejections, the false positives and the false positive rate of the filter.
+     *
+     * @param registry registry to bind the metrics to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+
+        FunctionCounter.builder("participant.filter.rejections", rejections, AtomicLong::get)
+            .description("Requests for participants that were rejected by the filter").register(registry);
+        FunctionCounter.builder("participant.filter.false.positives", falsePositives, AtomicLong::get)
+            .description("Requests for participants that passed the filter but do not exist").register(registry);
+        Gauge.builder("participant.filter.false.positive.rate", this,
+                ParticipantFilterServiceImpl::getFalsePositiveRate)
+            .description("Share of requests for non-existing participants that passed the filter").register(registry);
+        Gauge.builder("participant.filter.expected.false.positive.probability", this,
+                ParticipantFilterServiceImpl::getExpectedFalsePositiveProbability)
+            .description("False positive probability estimated from the fill ratio of the filter").register(registry);
+    }
+
+    /**
+     * Get the share of requests for non-existing participants that passed the filter.
+     *
+     * @return observed false positive rate
+     */
+    double getFalsePositiveRate() {
+
+        long passed = falsePositives.get();
+        long total = passed + rejections.get();
+        return total == 0 ? 0 : (double) passed / total;
+    }
+
+    /**
+     * Get the false positive probability estimated from the fill ratio of the current filter.
+     *
+     * @return estimated false positive probability, 1 if no filter was built yet
+     */
+    double getExpectedFalsePositiveProbability() {
+
+        BloomFilter currentFilter = filter;
+        return currentFilter == null ? 1 : currentFilter.getExpectedFalsePositiveProbability();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded read-through cache that evicts entries by size and age. Values loaded concurrently to an invalidation are
+ * not kept, so a reader that fetched data shortly before a write was committed can not re-populate the cache with the
+ * outdated value. Concurrent misses for the same key are coalesced, only one of the callers runs the loader and the
+ * others wait for and share its result or exception.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+class ReadThroughCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    ReadThroughCache(long maxSize, Duration ttl) {
+
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    /**
+     * Get the cached value for the given key without loading it.
+     *
+     * @param key key to look up
+     * @return cached value or null if it is not cached
+     */
+    V getIfPresent(K key) {
+
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Get the cached value for the given key or load and cache it if it is not present. If the value is already being
+     * loaded by another caller, wait for that load instead of starting another one.
+     *
+     * @param key key to look up
+     * @param loader function to load the value if it is not cached, exceptions are passed to all waiting callers
+     * @return cached or freshly loaded value
+     */
+    V get(K key, Function<K, V> loader) {
+
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlightLoad = inFlightLoads.putIfAbsent(key, load);
+        if (inFlightLoad != null) {
+            return await(inFlightLoad);
+        }
+
+        try {
+            value = load(key, loader);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    private V load(K key, Function<K, V> loader) {
+
+        long epoch = invalidationEpoch.get();
+        V value = loader.apply(key);
+        cache.put(key, value);
+        if (invalidationEpoch.get() != epoch) {
+            // an invalidation happened while loading, the value we just stored might already be outdated
+            cache.invalidate(key);
+        }
+        return value;
+    }
+
+    private V await(CompletableFuture<V> load) {
+
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove the entry with the given key.
+     *
+     * @param key key to remove
+     */
+    void invalidate(K key) {
+
+        invalidationEpoch.incrementAndGet();
+        // later callers must not wait for a load that might return the outdated value
+        inFlightLoads.remove(key);
+        cache.invalidate(key);
+    }
+
+    /**
+     * Remove all entries whose key matches the given predicate.
+     *
+     * @param keyPredicate predicate selecting the keys to remove
+     */
+    void invalidateIf(Predicate<K> keyPredicate) {
+
+        invalidationEpoch.incrementAndGet();
+        inFlightLoads.keySet().removeIf(keyPredicate);
+        cache.asMap().keySet().removeIf(keyPredicate);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void invalidateAll() {
+
+        invalidationEpoch.incrementAndGet();
+        inFlightLoads.clear();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.models.events.AllParticipantsChangedEvent;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.utils.DidUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Exports the publicly served DID documents and certificates as a static directory tree that follows the did:web
+ * layout, so that they can be served by a web server or CDN directly. After a full export at startup, participants are
+ * exported again whenever a change to their identity was committed. Exports of the same participant run one after
+ * another and each reads the latest committed state, so an export never overwrites the files of a later change.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "static-export.enabled", havingValue = "true")
+public class StaticSiteExportServiceImpl implements StaticSiteExportService {
+
+    private static final String CERTIFICATE_FILE_EXTENSION = ".pem";
+
+    private static final String TEMPORARY_FILE_PREFIX = ".";
+
+    private static final int EXPORT_LOCK_STRIPES = 64;
+
+    private final Path exportDirectory;
+
+    private final boolean exportOnStartup;
+
+    private final ParticipantDidDataRepository participantDidDataRepository;
+
+    private final DidDocumentService didDocumentService;
+
+    private final CertificateService certificateService;
+
+    private final DidWebUrlService didWebUrlService;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ForkJoinPool exportPool;
+
+    private final Object[] exportLocks = new Object[EXPORT_LOCK_STRIPES];
+
+    public StaticSiteExportServiceImpl(@Value("${static-export.directory}") String exportDirectory,
+        @Value("${static-export.export-on-startup:true}") boolean exportOnStartup,
+        @Value("${static-export.parallelism:4}") int parallelism,
+        @Autowired ParticipantDidDataRepository participantDidDataRepository,
+        @Autowired DidDocumentService didDocumentService, @Autowired CertificateService certificateService,
+        @Autowired DidWebUrlService didWebUrlService,
+        @Autowired @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+
+        this.exportDirectory = Path.of(exportDirectory).toAbsolutePath().normalize();
+        this.exportOnStartup = exportOnStartup;
+        this.participantDidDataRepository = participantDidDataRepository;
+        this.didDocumentService = didDocumentService;
+        this.certificateService = certificateService;
+        this.didWebUrlService = didWebUrlService;
+        this.taskExecutor = taskExecutor;
+        this.exportPool = new ForkJoinPool(parallelism);
+        Arrays.setAll(exportLocks, i -> new Object());
+    }
+
+    /**
+     * Start the full export in the background once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (exportOnStartup) {
+            taskExecutor.execute(this::exportAll);
+        }
+    }
+
+    /**
+     * Export the participant again once a change to its identity was committed. This runs after the caches of the
+     * services have been cleared, so the export reflects the committed state.
+     *
+     * @param event change event of the participant
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onParticipantDidChanged(ParticipantDidChangedEvent event) {
+
+        exportPool.execute(() -> {
+            try {
+                exportParticipant(event.participantId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to export participant {}: {}", event.participantId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Export all participants again in the background once changes of other nodes may have been missed.
+     *
+     * @param event event that any participant may have changed
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onAllParticipantsChanged(AllParticipantsChangedEvent event) {
+
+        taskExecutor.execute(this::exportAll);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        exportPool.shutdown();
+    }
+
+    /**
+     * Export the common DID document and certificate as well as all participants in parallel. Participant directories
+     * of participants that no longer exist are removed, participants created during the export are kept.
+     *
+     * @return number of successfully exported participants
+     */
+    @Override
+    public int exportAll() {
+
+        log.info("Starting static export to {}", exportDirectory);
+
+        exportCommon();
+
+        List<String> participantIds = participantDidDataRepository.findAllParticipantIds().stream()
+            .map(UUID::toString).toList();
+
+        AtomicInteger exported = new AtomicInteger();
+        exportPool.submit(() -> participantIds.parallelStream().forEach(participantId -> {
+            try {
+                exportParticipant(participantId);
+                exported.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Failed to export participant {}: {}", participantId, e.getMessage());
+            }
+        })).join();
+
+        removeStaleParticipantDirectories(new HashSet<>(participantIds));
+
+        log.info("Exported {} of {} participants to {}", exported.get(), participantIds.size(), exportDirectory);
+        return exported.get();
+    }
+
+    /**
+     * Export the DID document and certificates of a participant. Certificates are written before the DID document
+     * referencing them, and certificates that are no longer part of the participant are removed afterward. If the
+     * participant does not exist, its directory is removed.
+     *
+     * @param participantId id of the participant
+     */
+    @Override
+    public void exportParticipant(String participantId) {
+
+        synchronized (getExportLock(participantId)) {
+            exportParticipantState(participantId);
+        }
+    }
+
+    private void exportParticipantState(String participantId) {
+
+        String didWeb = didWebUrlService.getDidWebForParticipant(participantId);
+        Path didDocumentPath = getDidDocumentPath(didWeb);
+        Path participantDirectory = didDocumentPath.getParent();
+
+        UUID participantUuid = DidUtils.parseParticipantId(participantId);
+        ParticipantDidDataEntity participantDidDataEntity = participantUuid == null ? null
+            : participantDidDataRepository.findByParticipantId(participantUuid);
+        if (participantDidDataEntity == null) {
+            deleteRecursively(participantDirectory);
+            return;
+        }
+
+        Set<Path> exportedFiles = new HashSet<>();
+        for (VerificationMethodEntity vmEntity : participantDidDataEntity.getVerificationMethods()) {
+            Path certificatePath = didDocumentPath.resolveSibling(
+                vmEntity.getCertificateId() + CERTIFICATE_FILE_EXTENSION);
+            writeAtomically(certificatePath, vmEntity.getCertificate().getBytes(StandardCharsets.UTF_8));
+            exportedFiles.add(certificatePath);
+        }
+
+        writeAtomically(didDocumentPath,
+            didDocumentService.getRenderedParticipantDidDocument(participantId).getContent());
+        exportedFiles.add(didDocumentPath);
+
+        try (Stream<Path> files = Files.list(participantDirectory)) {
+            files.filter(file -> !exportedFiles.contains(file))
+                .filter(file -> !file.getFileName().toString().startsWith(TEMPORARY_FILE_PREFIX))
+                .forEach(this::deleteRecursively);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void exportCommon() {
+
+        Path commonDidDocumentPath = getDidDocumentPath(didWebUrlService.getCommonDidWeb());
+        try {
+            writeAtomically(commonDidDocumentPath.resolveSibling(DidUtils.COMMON_CERTIFICATE_FILE),
+                certificateService.getRenderedCommonCertificate().getContent());
+        } catch (CertificateNotFoundException e) {
+            log.info("Common certificate is not enabled and will not be exported.");
+        }
+        writeAtomically(commonDidDocumentPath, didDocumentService.getRenderedCommonDidDocument().getContent());
+    }
+
+    /**
+     * Remove the directories of participants that were not exported, unless the participant was created after the
+     * participants to export were read.
+     *
+     * @param participantIds ids of the exported participants
+     */
+    private void removeStaleParticipantDirectories(Set<String> participantIds) {
+
+        // the did:web of the participants resolves to a document within the directory of the participants
+        Path participantsDirectory = getDidDocumentPath(didWebUrlService.getParticipantsDidWeb()).getParent();
+        if (!Files.isDirectory(participantsDirectory)) {
+            return;
+        }
+
+        try (Stream<Path> directories = Files.list(participantsDirectory)) {
+            directories.filter(Files::isDirectory)
+                .filter(directory -> !participantIds.contains(directory.getFileName().toString()))
+                .forEach(this::removeDeletedParticipantDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void removeDeletedParticipantDirectory(Path directory) {
+
+        String participantId = directory.getFileName().toString();
+        synchronized (getExportLock(participantId)) {
+            UUID participantUuid = DidUtils.parseParticipantId(participantId);
+            if (participantUuid == null || !participantDidDataRepository.existsByParticipantId(participantUuid)) {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private Object getExportLock(String participantId) {
+
+        return exportLocks[Math.floorMod(participantId.hashCode(), exportLocks.length)];
+    }
+
+    /**
+     * Get the path of the DID document for the given did:web within the export directory. The path corresponds to the
+     * path of the URI that the DID document is resolved from.
+     *
+     * @param didWeb did:web
+     * @return path of the DID document
+     */
+    private Path getDidDocumentPath(String didWeb) {
+
+        String uriPath = URI.create(DidUtils.getDidDocumentUri(didWeb)).getPath();
+        Path didDocumentPath = exportDirectory.resolve(uriPath.substring(1)).normalize();
+        if (!didDocumentPath.startsWith(exportDirectory)) {
+            throw new IllegalArgumentException("DID document path of " + didWeb + " is outside the export directory.");
+        }
+        return didDocumentPath;
+    }
+
+    /**
+     * Write the content to a temporary file next to the target and move it into place, so that the web server serving
+     * the export never sees a partially written file.
+     *
+     * @param target file to write
+     * @param content content of the file
+     */
+    private void writeAtomically(Path target, byte[] content) {
+
+        try {
+            Files.createDirectories(target.getParent());
+            Path temporaryFile = Files.createTempFile(target.getParent(), TEMPORARY_FILE_PREFIX, ".tmp");
+            try {
+                Files.write(temporaryFile, content);
+                try {
+                    Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteRecursively(Path path) {
+
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.VerificationMethodRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * One-off background job that extracts and stores the public JWK components of verification methods that were
+ * created before the components were stored at ingest time. Certificates of a batch are parsed in parallel, the
+ * entities are only updated on the thread of the transaction. Until a verification method is processed, its JWK is
+ * derived from the certificate on demand.
+ */
+@Component
+@Slf4j
+public class VerificationMethodBackfillJob {
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final VerificationMethodRepository verificationMethodRepository;
+
+    private final CertificateService certificateService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor taskExecutor;
+
+    public VerificationMethodBackfillJob(@Value("${verification-method-backfill.enabled:true}") boolean enabled,
+        @Value("${verification-method-backfill.batch-size:500}") int batchSize,
+        @Autowired VerificationMethodRepository verificationMethodRepository,
+        @Autowired CertificateService certificateService, @Autowired PlatformTransactionManager transactionManager,
+        @Autowired @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.verificationMethodRepository = verificationMethodRepository;
+        this.certificateService = certificateService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Start the backfill in the background once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+
+        if (enabled) {
+            taskExecutor.execute(this::backfill);
+        }
+    }
+
+    /**
+     * Store the public JWK components of all verification methods that have none yet. Verification methods whose
+     * certificate has no RSA public key are skipped. Each batch is processed in its own transaction.
+     *
+     * @return number of updated verification methods
+     */
+    public int backfill() {
+
+        long lastId = 0;
+        int updated = 0;
+        List<VerificationMethodEntity> batch;
+        do {
+            long afterId = lastId;
+            batch = transactionTemplate.execute(status -> backfillBatch(afterId));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+                updated += (int) batch.stream().filter(vmEntity -> vmEntity.getKty() != null).count();
+            }
+        } while (batch.size() == batchSize);
+
+        if (updated > 0) {
+            log.info("Stored public JWK components of {} verification methods.", updated);
+        }
+        return updated;
+    }
+
+    private List<VerificationMethodEntity> backfillBatch(long afterId) {
+
+        List<VerificationMethodEntity> batch = verificationMethodRepository.findByKtyIsNullAndIdGreaterThanOrderById(
+            afterId, PageRequest.of(0, batchSize));
+        // the managed entities are neither read nor modified by the parallel workers
+        List<String> certificates = batch.stream().map(VerificationMethodEntity::getCertificate).toList();
+        List<PublicJwk> publicJwks = certificates.parallelStream()
+            .map(certificate -> VerificationMethodKeys.derivePublicJwk(certificateService, certificate)).toList();
+        for (int i = 0; i < batch.size(); i++) {
+            if (publicJwks.get(i) != null) {
+                VerificationMethodKeys.storePublicJwk(batch.get(i), publicJwks.get(i));
+            }
+        }
+        verificationMethodRepository.saveAll(batch);
+        return batch;
+    }
+}
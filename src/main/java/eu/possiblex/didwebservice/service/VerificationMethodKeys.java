@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.utils.JwkUtils;
+
+import java.security.cert.CertificateException;
+
+/**
+ * Extraction of the public JWK components that are stored with a verification method, so DID documents can be built
+ * without parsing the certificate.
+ */
+final class VerificationMethodKeys {
+
+    private VerificationMethodKeys() {
+
+    }
+
+    /**
+     * Derive the public JWK from the certificate of the verification method and store its components in the entity.
+     *
+     * @param certificateService service to derive the JWK with
+     * @param vmEntity verification method to store the JWK components in
+     * @return true if the components were stored, false if the certificate has no RSA public key
+     */
+    static boolean storePublicJwk(CertificateService certificateService, VerificationMethodEntity vmEntity) {
+
+        PublicJwk publicJwk = derivePublicJwk(certificateService, vmEntity.getCertificate());
+        if (publicJwk == null) {
+            return false;
+        }
+        storePublicJwk(vmEntity, publicJwk);
+        return true;
+    }
+
+    /**
+     * Derive the public JWK from a certificate without touching any entity, so it can be done off the thread of the
+     * transaction the entity belongs to.
+     *
+     * @param certificateService service to derive the JWK with
+     * @param certificate certificate in PEM format
+     * @return public JWK or null if the certificate has no RSA public key
+     */
+    static PublicJwk derivePublicJwk(CertificateService certificateService, String certificate) {
+
+        try {
+            return certificateService.getPublicJwk(certificate);
+        } catch (CertificateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Store the components of a derived public JWK in the verification method.
+     *
+     * @param vmEntity verification method to store the JWK components in
+     * @param publicJwk public JWK derived from the certificate of the verification method
+     */
+    static void storePublicJwk(VerificationMethodEntity vmEntity, PublicJwk publicJwk) {
+
+        vmEntity.setKty(publicJwk.getKty());
+        vmEntity.setN(publicJwk.getN());
+        vmEntity.setE(publicJwk.getE());
+        vmEntity.setAlg(publicJwk.getAlg());
+        vmEntity.setThumbprint(JwkUtils.computeThumbprint(publicJwk));
+    }
+
+    /**
+     * Get the stored public JWK of the verification method.
+     *
+     * @param vmEntity verification method
+     * @return stored public JWK or null if no components are stored
+     */
+    static PublicJwk getStoredPublicJwk(VerificationMethodEntity vmEntity) {
+
+        if (vmEntity.getKty() == null) {
+            return null;
+        }
+        return PublicJwk.builder().kty(vmEntity.getKty()).n(vmEntity.getN()).e(vmEntity.getE())
+            .alg(vmEntity.getAlg()).build();
+    }
+}
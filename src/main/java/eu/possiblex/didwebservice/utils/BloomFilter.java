@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.utils;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of UUIDs. A negative answer is definite, a positive answer may be wrong with a probability
+ * that depends on the number of inserted elements. Elements can not be removed.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    private final long expectedInsertions;
+
+    private final AtomicLong setBits = new AtomicLong();
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Create a filter sized for the given number of elements and false positive probability.
+     *
+     * @param expectedInsertions number of elements the filter is sized for
+     * @param falsePositiveProbability false positive probability once the expected number of elements is inserted
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException(
+                "Invalid Bloom filter size: " + expectedInsertions + " elements with " + falsePositiveProbability
+                    + " false positive probability");
+        }
+        long optimalBits = (long) Math.ceil(
+            -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = wordCount * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Insert an element.
+     *
+     * @param element element to insert
+     */
+    public void put(UUID element) {
+
+        long hash1 = mix(element.getMostSignificantBits());
+        long hash2 = mix(element.getLeastSignificantBits() ^ hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            int wordIndex = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.getAndAccumulate(wordIndex, mask, (word, m) -> word | m) & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Check whether an element might have been inserted.
+     *
+     * @param element element to check
+     * @return false if the element was definitely not inserted, true if it probably was
+     */
+    public boolean mightContain(UUID element) {
+
+        long hash1 = mix(element.getMostSignificantBits());
+        long hash2 = mix(element.getLeastSignificantBits() ^ hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the probability that an element that was not inserted is reported as contained, based on the fraction
+     * of bits that are set.
+     *
+     * @return estimated false positive probability
+     */
+    public double getExpectedFalsePositiveProbability() {
+
+        return Math.pow((double) setBits.get() / bitSize, hashFunctions);
+    }
+
+    /**
+     * Get the number of insertions, including repeated insertions of the same element.
+     *
+     * @return number of insertions
+     */
+    public long getInsertions() {
+
+        return insertions.get();
+    }
+
+    /**
+     * Get the number of elements the filter is sized for.
+     *
+     * @return number of expected insertions
+     */
+    public long getExpectedInsertions() {
+
+        return expectedInsertions;
+    }
+
+    /**
+     * Finalization step of MurmurHash3 to spread the bits of the UUID halves over the whole hash.
+     */
+    private static long mix(long value) {
+
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
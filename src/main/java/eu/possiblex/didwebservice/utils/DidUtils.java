@@ -16,6 +16,8 @@
 
 package eu.possiblex.didwebservice.utils;
 
+import java.util.UUID;
+
 public class DidUtils {
 
     public static final String DID_WEB_PREFIX = "did:web:";
@@ -28,6 +30,26 @@ public class DidUtils {
 
     }
 
+    /**
+     * Parse a participant id, which is a UUID in its canonical lowercase form. Other spellings of the same UUID are
+     * rejected so that every participant is reachable under exactly one id.
+     *
+     * @param participantId participant id
+     * @return parsed participant id or null if the id is not a canonical UUID
+     */
+    public static UUID parseParticipantId(String participantId) {
+
+        if (participantId == null || participantId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(participantId);
+            return uuid.toString().equals(participantId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Given a valid did:web, return the resulting URI to the did document. See <a
      * href="https://w3c-ccg.github.io/did-method-web/#read-resolve">did-web specification</a> for reference.
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.utils;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+public class JwkUtils {
+
+    private JwkUtils() {
+
+    }
+
+    /**
+     * Compute the JWK thumbprint of an RSA public JWK. See <a href="https://www.rfc-editor.org/rfc/rfc7638">RFC 7638</a>
+     * for reference. The modulus and exponent may be given with leading zero bytes and padding, they are normalized
+     * before hashing.
+     *
+     * @param publicJwk RSA public JWK
+     * @return base64url encoded SHA-256 thumbprint
+     */
+    public static String computeThumbprint(PublicJwk publicJwk) {
+
+        // the required members in lexicographic order without whitespace
+        String canonicalJwk = "{\"e\":\"" + normalize(publicJwk.getE()) + "\",\"kty\":\"" + publicJwk.getKty()
+            + "\",\"n\":\"" + normalize(publicJwk.getN()) + "\"}";
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(digest.digest(canonicalJwk.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this runtime", e);
+        }
+    }
+
+    private static String normalize(String base64UrlUInt) {
+
+        byte[] bytes = new BigInteger(1, Base64.getUrlDecoder().decode(base64UrlUInt)).toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -18,17 +18,41 @@
 package eu.possiblex.didwebservice;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = { "management.endpoints.web.base-path=/",
+		"management.endpoints.web.exposure.include=health,prometheus" })
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 class DidWebServiceApplicationTests {
 
+	@Autowired
+	private MockMvc mockMvc;
+
 	@Test
 	void contextLoads() {
 		// no explicit assertions necessary, just be sure we reach this point
 		assertTrue(true);
 	}
 
+	@Test
+	void prometheusEndpointExposesPercentileHistograms() throws Exception {
+
+		mockMvc.perform(get("/prometheus")).andExpect(status().isOk())
+			.andExpect(content().string(containsString("resource_requests_seconds_bucket{")))
+			.andExpect(content().string(containsString("outcome=\"not-found\"")))
+			.andExpect(content().string(containsString("did_management_operations_seconds_bucket{")))
+			.andExpect(content().string(containsString("certificate_parse_seconds_count{")));
+	}
+
 }
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package eu.possiblex.didwebservice.config;
+
+import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
+import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoundaryExceptionHandlerTests {
+
+    @Test
+    void notFoundExceptionsHaveNoStackTrace() {
+
+        assertEquals(0, new ParticipantNotFoundException("unknown").getStackTrace().length);
+        assertEquals(0, new CertificateNotFoundException("unknown").getStackTrace().length);
+    }
+
+    @Test
+    void handleNotFoundCountsAndSuppressesLogging() {
+
+        BoundaryExceptionHandler handler = new BoundaryExceptionHandler(Duration.ofHours(1), Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HttpStatus.NOT_FOUND,
+                handler.handleException(new ParticipantNotFoundException("unknown")).getStatusCode());
+        }
+        assertEquals(HttpStatus.NOT_FOUND,
+            handler.handleException(new CertificateNotFoundException("unknown")).getStatusCode());
+
+        assertEquals(6, handler.getNotFoundCount());
+        assertEquals(5, handler.getSuppressedNotFoundCount());
+    }
+
+    @Test
+    void handleNotFoundLogsEveryTimeWithoutInterval() {
+
+        BoundaryExceptionHandler handler = new BoundaryExceptionHandler(Duration.ZERO, Duration.ZERO);
+
+        handler.handleException(new ParticipantNotFoundException("unknown"));
+        handler.handleException(new ParticipantNotFoundException("unknown"));
+
+        assertEquals(2, handler.getNotFoundCount());
+        assertEquals(0, handler.getSuppressedNotFoundCount());
+    }
+
+    @Test
+    void bindNotFoundMetrics() {
+
+        BoundaryExceptionHandler handler = new BoundaryExceptionHandler(Duration.ofHours(1), Duration.ofHours(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        handler.bindTo(registry);
+
+        handler.handleException(new CertificateNotFoundException("unknown"));
+
+        assertEquals(0, registry.get("boundary.not.found").tag("type", "participant").functionCounter().count());
+        assertEquals(1, registry.get("boundary.not.found").tag("type", "certificate").functionCounter().count());
+    }
+}
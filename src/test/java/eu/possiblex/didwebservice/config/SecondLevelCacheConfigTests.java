@@ -0,0 +1,55 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SecondLevelCacheConfigTests {
+
+    private final SecondLevelCacheConfig sut = new SecondLevelCacheConfig(true, 10, 10, Duration.ofMinutes(1));
+
+    @Test
+    void customizerEnablesStatisticsWithoutSessionLogging() {
+
+        Map<String, Object> properties = new HashMap<>();
+
+        sut.secondLevelCacheCustomizer(null).customize(properties);
+
+        assertEquals(true, properties.get(AvailableSettings.GENERATE_STATISTICS));
+        assertEquals(false, properties.get(AvailableSettings.LOG_SESSION_METRICS));
+    }
+
+    @Test
+    void customizerKeepsConfiguredStatistics() {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.GENERATE_STATISTICS, "false");
+        properties.put(AvailableSettings.LOG_SESSION_METRICS, "true");
+
+        sut.secondLevelCacheCustomizer(null).customize(properties);
+
+        assertEquals("false", properties.get(AvailableSettings.GENERATE_STATISTICS));
+        assertEquals("true", properties.get(AvailableSettings.LOG_SESSION_METRICS));
+    }
+}
@@ -23,19 +23,23 @@ import eu.possiblex.didwebservice.service.CertificateServiceFake;
 import eu.possiblex.didwebservice.service.DidDocumentService;
 import eu.possiblex.didwebservice.service.DidDocumentServiceFake;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest({ DidControllerImpl.class })
 @ContextConfiguration(classes = { DidControllerImpl.class, BoundaryExceptionHandler.class,
@@ -53,6 +57,14 @@ class DidControllerTests {
             .andDo(print()).andExpect(status().isOk());
     }
 
+    @Test
+    void getDidDocumentContent() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/any/did.json").accept(MediaType.APPLICATION_JSON))
+            .andDo(print()).andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.id").value("any")).andExpect(jsonPath("$['@context']").isArray());
+    }
+
     @Test
     void getCommonDidDocumentOk() throws Exception {
 
@@ -76,6 +88,24 @@ class DidControllerTests {
             .andDo(print()).andExpect(status().isInternalServerError());
     }
 
+    @Test
+    void getDidDocumentStale() throws Exception {
+
+        mvc.perform(
+                MockMvcRequestBuilders.get("/participant/stale-participant/did.json").accept(MediaType.APPLICATION_JSON))
+            .andDo(print()).andExpect(status().isOk()).andExpect(jsonPath("$.id").value("stale-participant"))
+            .andExpect(header().string(HttpHeaders.WARNING, "110 - \"Response is Stale\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, startsWith("no-cache")));
+    }
+
+    @Test
+    void getDidDocumentServiceUnavailable() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/unavailable-participant/did.json")
+                .accept(MediaType.APPLICATION_JSON)).andDo(print()).andExpect(status().isServiceUnavailable())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     void getCommonCertificateOk() throws Exception {
 
@@ -83,6 +113,66 @@ class DidControllerTests {
             .accept(MediaType.parseMediaType("application/x-x509-ca-cert"))).andDo(print()).andExpect(status().isOk());
     }
 
+    @Test
+    void getCertificateContent() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/any/any-certificate.pem")
+                .accept(MediaType.parseMediaType("application/x-x509-ca-cert"))).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.parseMediaType("application/x-x509-ca-cert")))
+            .andExpect(content().string(CertificateServiceFake.EXAMPLE_CERTIFICATE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/participant/any/did.json", "/participant/any/any-certificate.pem",
+        "/.well-known/did.json", "/.well-known/cert.ss.pem" })
+    void getResourceNotModified(String path) throws Exception {
+
+        String etag = mvc.perform(MockMvcRequestBuilders.get(path)).andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag)).andDo(print())
+            .andExpect(status().isNotModified()).andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/participant/any/did.json", "/participant/any/any-certificate.pem",
+        "/.well-known/did.json", "/.well-known/cert.ss.pem" })
+    void getResourceNotModifiedSince(String path) throws Exception {
+
+        String lastModified = mvc.perform(MockMvcRequestBuilders.get(path)).andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED)).andReturn().getResponse()
+            .getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andDo(print()).andExpect(status().isNotModified()).andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getResourceModifiedSince() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/any/did.json")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Sat, 01 Jan 2000 00:00:00 GMT")).andDo(print())
+            .andExpect(status().isOk()).andExpect(jsonPath("$.id").value("any"));
+    }
+
+    @Test
+    void getResourceCacheControl() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/any/did.json")).andDo(print()).andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                "max-age=300, public, stale-if-error=86400, stale-while-revalidate=60"));
+    }
+
+    @Test
+    void getResourceModified() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/participant/any/did.json")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"outdated\"")).andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value("any"));
+    }
+
     @Test
     void getParticipantNotFound() throws Exception {
 
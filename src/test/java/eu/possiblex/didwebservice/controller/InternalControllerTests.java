@@ -39,6 +39,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import java.util.List;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest({ InternalControllerImpl.class })
@@ -66,6 +67,17 @@ class InternalControllerTests {
             .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void generateDidsReturnsResultOfEachRequest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post("/internal/didweb/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(objectAsJsonString(List.of(getValidCreateRequest(), getEmptyCreateRequest())))
+                .accept(MediaType.APPLICATION_JSON)).andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status").value("CREATED"))
+            .andExpect(jsonPath("$[0].participantDid.did").value("did:web:example.com:participant:someorgltd"))
+            .andExpect(jsonPath("$[1].status").value("REJECTED")).andExpect(jsonPath("$[1].error").isNotEmpty());
+    }
+
     @Test
     void updateDidOk() throws Exception {
 
@@ -96,6 +108,21 @@ class InternalControllerTests {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getDidByAliasOk() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/internal/didweb").param("alias", "https://example.com")
+                .accept(MediaType.APPLICATION_JSON)).andDo(print()).andExpect(status().isOk())
+            .andExpect(jsonPath("$.did").value("did:web:example.com:participant:someorgltd"));
+    }
+
+    @Test
+    void getDidByAliasNotFound() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/internal/didweb").param("alias", "https://unknown.example.com")
+            .accept(MediaType.APPLICATION_JSON)).andDo(print()).andExpect(status().isNotFound());
+    }
+
     @Test
     void deleteDidOkay() throws Exception {
 
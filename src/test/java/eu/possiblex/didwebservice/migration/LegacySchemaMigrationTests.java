@@ -0,0 +1,255 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.migration;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.repositories.VerificationMethodRepository;
+import eu.possiblex.didwebservice.service.CertificateService;
+import eu.possiblex.didwebservice.service.CertificateServiceFake;
+import eu.possiblex.didwebservice.service.DidWebUrlService;
+import eu.possiblex.didwebservice.service.DidWebUrlServiceFake;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = { LegacySchemaMigrationTests.TestConfig.class, LegacySchemaMigration.class,
+    DidWebServiceApplication.class })
+@TestPropertySource(properties = { "verification-method-backfill.enabled=false",
+    "did-document-render-job.enabled=false" })
+class LegacySchemaMigrationTests {
+
+    private static final UUID LEGACY_PARTICIPANT_ID = UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c");
+
+    @Autowired
+    private LegacySchemaMigration sut;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @Autowired
+    private VerificationMethodRepository verificationMethodRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @AfterEach
+    void tearDown() {
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + LegacySchemaMigration.LEGACY_VERIFICATION_METHOD_JOIN_TABLE);
+        jdbcTemplate.execute(
+            "ALTER TABLE participant_did_data DROP COLUMN IF EXISTS " + LegacySchemaMigration.LEGACY_ALIASES_COLUMN);
+        jdbcTemplate.execute(
+            "ALTER TABLE participant_did_data DROP COLUMN IF EXISTS " + LegacySchemaMigration.LEGACY_DID_COLUMN);
+        participantDidDataRepository.deleteAll();
+        verificationMethodRepository.deleteAll();
+    }
+
+    @Test
+    void migrateVerificationMethodJoinTable() {
+
+        ParticipantDidDataEntity participant = new ParticipantDidDataEntity();
+        participant.setParticipantId(LEGACY_PARTICIPANT_ID);
+        participant = participantDidDataRepository.save(participant);
+        VerificationMethodEntity linked = verificationMethodRepository.save(
+            new VerificationMethodEntity(null, "vm1", "cert1"));
+        VerificationMethodEntity unlinked = verificationMethodRepository.save(
+            new VerificationMethodEntity(null, "vm2", "cert2"));
+        jdbcTemplate.execute("CREATE TABLE " + LegacySchemaMigration.LEGACY_VERIFICATION_METHOD_JOIN_TABLE
+            + " (participant_did_data_entity_id BIGINT NOT NULL, verification_methods_id BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO " + LegacySchemaMigration.LEGACY_VERIFICATION_METHOD_JOIN_TABLE
+            + " VALUES (?, ?)", participant.getId(), linked.getId());
+
+        sut.migrate();
+
+        List<Long> participantIds = jdbcTemplate.queryForList(
+            "SELECT participant_id FROM verification_method WHERE id = ?", Long.class, linked.getId());
+        assertEquals(List.of(participant.getId()), participantIds);
+        assertFalse(verificationMethodRepository.existsById(unlinked.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?", Integer.class,
+            LegacySchemaMigration.LEGACY_VERIFICATION_METHOD_JOIN_TABLE));
+    }
+
+    @Test
+    void advanceIdSequencesPastLegacyIds() {
+
+        // rows with ids generated by the identity columns of earlier versions
+        jdbcTemplate.update("INSERT INTO participant_did_data (id, participant_id) VALUES (?, ?)", 10_000L,
+            LEGACY_PARTICIPANT_ID);
+        jdbcTemplate.update(
+            "INSERT INTO verification_method (id, participant_id, certificate_id, certificate) VALUES (?, ?, ?, ?)",
+            20_000L, 10_000L, "vm1", "cert1");
+
+        sut.migrate();
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + ParticipantDidDataEntity.ID_SEQUENCE,
+            Long.class) > 10_000L + ParticipantDidDataEntity.ID_ALLOCATION_SIZE);
+        assertTrue(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + VerificationMethodEntity.ID_SEQUENCE,
+            Long.class) > 20_000L + ParticipantDidDataEntity.ID_ALLOCATION_SIZE);
+    }
+
+    @Test
+    void migrateAliasesColumn() {
+
+        ParticipantDidDataEntity participant = new ParticipantDidDataEntity();
+        participant.setParticipantId(LEGACY_PARTICIPANT_ID);
+        participant = participantDidDataRepository.save(participant);
+        jdbcTemplate.execute(
+            "ALTER TABLE participant_did_data ADD COLUMN " + LegacySchemaMigration.LEGACY_ALIASES_COLUMN + " VARCHAR(255)");
+        jdbcTemplate.update("UPDATE participant_did_data SET " + LegacySchemaMigration.LEGACY_ALIASES_COLUMN
+            + " = ? WHERE id = ?", "https://legacy.example.com;https://legacy.example.org", participant.getId());
+
+        sut.migrate();
+
+        assertEquals(List.of("https://legacy.example.com", "https://legacy.example.org"),
+            jdbcTemplate.queryForList("SELECT alias FROM participant_alias WHERE participant_id = ? ORDER BY alias_order",
+                String.class, participant.getId()));
+        assertEquals(List.of(LEGACY_PARTICIPANT_ID),
+            participantDidDataRepository.findParticipantIdsByAlias("https://legacy.example.org"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE LOWER(TABLE_NAME) = ? AND LOWER(COLUMN_NAME) = ?",
+            Integer.class, "participant_did_data", LegacySchemaMigration.LEGACY_ALIASES_COLUMN));
+    }
+
+    @Test
+    void migrateDidColumn() {
+
+        ParticipantDidDataEntity participant = saveParticipantWithLegacyDid(
+            "did:web:old.example.com:participant:" + LEGACY_PARTICIPANT_ID);
+        saveParticipantWithLegacyDid("did:web:old.example.com:participant:legacy");
+        LegacySchemaMigration deletingSut = new LegacySchemaMigration(jdbcTemplate, transactionManager,
+            entityManagerFactory, dataSourceProperties, true);
+
+        deletingSut.migrate();
+
+        assertEquals(participant.getId(),
+            participantDidDataRepository.findByParticipantId(LEGACY_PARTICIPANT_ID).getId());
+        assertEquals(1, participantDidDataRepository.count());
+        assertFalse(legacyDidColumnExists());
+    }
+
+    @Test
+    void migrateDidColumnAbortedForUnaddressableParticipants() {
+
+        saveParticipantWithLegacyDid("did:web:old.example.com:participant:" + LEGACY_PARTICIPANT_ID);
+        saveParticipantWithLegacyDid("did:web:old.example.com:participant:legacy");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> sut.migrate());
+
+        assertTrue(e.getMessage().contains("did:web:old.example.com:participant:legacy"));
+        assertEquals(2, participantDidDataRepository.count());
+        assertNull(participantDidDataRepository.findByParticipantId(LEGACY_PARTICIPANT_ID));
+        assertTrue(legacyDidColumnExists());
+    }
+
+    @Test
+    void migrateWaitsForMigrationLock() throws Exception {
+
+        saveParticipantWithLegacyDid("did:web:old.example.com:participant:" + LEGACY_PARTICIPANT_ID);
+
+        CompletableFuture<Void> migration;
+        try (Connection lockConnection = dataSource.getConnection()) {
+            lockConnection.setAutoCommit(false);
+            lockConnection.createStatement().executeQuery("SELECT id FROM schema_migration_lock FOR UPDATE").close();
+
+            migration = CompletableFuture.runAsync(() -> sut.migrate());
+            Thread.sleep(500);
+            assertFalse(migration.isDone());
+            assertTrue(legacyDidColumnExists());
+            lockConnection.rollback();
+        }
+
+        migration.get(10, TimeUnit.SECONDS);
+        assertNotNull(participantDidDataRepository.findByParticipantId(LEGACY_PARTICIPANT_ID));
+        assertFalse(legacyDidColumnExists());
+    }
+
+    @Test
+    void migrateWithoutLegacyTable() {
+
+        assertDoesNotThrow(() -> sut.migrate());
+    }
+
+    private ParticipantDidDataEntity saveParticipantWithLegacyDid(String did) {
+
+        ParticipantDidDataEntity participant = participantDidDataRepository.save(new ParticipantDidDataEntity());
+        if (!legacyDidColumnExists()) {
+            jdbcTemplate.execute(
+                "ALTER TABLE participant_did_data ADD COLUMN " + LegacySchemaMigration.LEGACY_DID_COLUMN + " VARCHAR(255)");
+        }
+        jdbcTemplate.update("UPDATE participant_did_data SET " + LegacySchemaMigration.LEGACY_DID_COLUMN
+            + " = ? WHERE id = ?", did, participant.getId());
+        return participant;
+    }
+
+    private boolean legacyDidColumnExists() {
+
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE LOWER(TABLE_NAME) = ? AND LOWER(COLUMN_NAME) = ?",
+            Integer.class, "participant_did_data", LegacySchemaMigration.LEGACY_DID_COLUMN) > 0;
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = { CacheWarmUpJobTests.TestConfig.class, CacheWarmUpJob.class,
+    DidWebServiceApplication.class })
+@TestPropertySource(properties = { "cache-warm-up.enabled=true", "cache-warm-up.page-size=2" })
+@Transactional
+class CacheWarmUpJobTests {
+
+    @Autowired
+    private CacheWarmUpJob sut;
+
+    @Autowired
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @Autowired
+    private DidDocumentService didDocumentService;
+
+    @Test
+    void warmUpAllParticipants() {
+
+        for (int i = 1; i <= 5; i++) {
+            participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-00000000000" + i));
+        }
+        clearInvocations(didDocumentService);
+
+        assertEquals(5, sut.warmUp());
+
+        for (int i = 1; i <= 5; i++) {
+            verify(didDocumentService).getRenderedParticipantDidDocument("00000000-0000-0000-0000-00000000000" + i);
+        }
+        Health health = sut.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("COMPLETED", health.getDetails().get("state").toString());
+        assertEquals(5, health.getDetails().get("warmedUp"));
+    }
+
+    @Test
+    void warmUpSkipsFailedParticipants() {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000001"));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000002"));
+        clearInvocations(didDocumentService);
+        doThrow(new IllegalStateException("broken")).when(didDocumentService)
+            .getRenderedParticipantDidDocument("00000000-0000-0000-0000-000000000001");
+
+        assertEquals(1, sut.warmUp());
+
+        assertEquals(1, sut.health().getDetails().get("failed"));
+        verify(didDocumentService, times(2)).getRenderedParticipantDidDocument(any());
+
+        reset(didDocumentService);
+    }
+
+    private ParticipantDidDataEntity getTestParticipant(String participantId) {
+
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(UUID.fromString(participantId));
+        participantDidDataEntity.setVerificationMethods(Collections.emptyList());
+        participantDidDataEntity.setAliases(Collections.emptyList());
+        return participantDidDataEntity;
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public DidDocumentService didDocumentService() {
+
+            return Mockito.spy(new DidDocumentServiceFake());
+        }
+
+        @Bean
+        public TaskExecutor applicationTaskExecutor() {
+
+            return new SyncTaskExecutor();
+        }
+    }
+}
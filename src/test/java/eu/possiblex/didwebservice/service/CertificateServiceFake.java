@@ -16,6 +16,8 @@
 
 package eu.possiblex.didwebservice.service;
 
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
 import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 
@@ -24,6 +26,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
 import java.util.List;
 
 public class CertificateServiceFake implements CertificateService {
@@ -82,6 +86,20 @@ public class CertificateServiceFake implements CertificateService {
         return EXAMPLE_CERTIFICATE;
     }
 
+    @Override
+    public RenderedResource getRenderedParticipantCertificate(String participantId, String certId) {
+
+        return new RenderedResource(getParticipantCertificate(participantId, certId).getBytes(StandardCharsets.UTF_8),
+            DidDocumentServiceFake.LAST_MODIFIED);
+    }
+
+    @Override
+    public RenderedResource getRenderedCommonCertificate() {
+
+        return new RenderedResource(getCommonCertificate().getBytes(StandardCharsets.UTF_8),
+            DidDocumentServiceFake.LAST_MODIFIED);
+    }
+
     @Override
     public X509Certificate convertPemStringToCertificate(String certs) throws CertificateException {
 
@@ -92,4 +110,14 @@ public class CertificateServiceFake implements CertificateService {
 
         return ((List<X509Certificate>) certFactory.generateCertificates(certStream)).stream().findFirst().orElse(null);
     }
+
+    @Override
+    public PublicJwk getPublicJwk(String certs) throws CertificateException {
+
+        RSAPublicKey rsaPublicKey = (RSAPublicKey) convertPemStringToCertificate(certs).getPublicKey();
+        return PublicJwk.builder().kty("RSA")
+            .n(Base64.getUrlEncoder().encodeToString(rsaPublicKey.getModulus().toByteArray()))
+            .e(Base64.getUrlEncoder().encodeToString(rsaPublicKey.getPublicExponent().toByteArray())).alg("PS256")
+            .build();
+    }
 }
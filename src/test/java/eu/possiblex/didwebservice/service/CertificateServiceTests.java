@@ -17,11 +17,14 @@
 package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
 import eu.possiblex.didwebservice.models.exceptions.CertificateNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,30 +34,49 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @ContextConfiguration(classes = { CertificateServiceTests.TestConfig.class, CertificateServiceImpl.class,
     DidWebServiceApplication.class })
 @Transactional
 class CertificateServiceTests {
+
+    private static final String EXISTING_PARTICIPANT = "6f1b3a52-8c1e-3d4a-9a0e-2b7f5c1d9e43";
+
+    private static final String OTHER_PARTICIPANT = "0e8a5d2c-47b1-3f6e-8d9c-1a2b3c4d5e6f";
     @Autowired
     private CertificateService sut;
 
     @SpyBean
     private ParticipantDidDataRepository participantDidDataRepository;
 
+    @Autowired
+    private CertificateServiceImpl certificateServiceImpl;
+
+    @Autowired
+    private ParticipantFilterService participantFilterService;
+
     @BeforeEach
     void setUp() {
 
+        certificateServiceImpl.evictAll();
         storeExampleParticipant();
     }
 
@@ -70,16 +92,101 @@ class CertificateServiceTests {
     @Test
     void getCertificateForExistingParticipant() {
 
-        String cert = sut.getParticipantCertificate("existing-participant", "existing-certificate");
+        String cert = sut.getParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
         assertNotNull(cert);
     }
 
+    // get one of multiple certificates for existing participant
+    @Test
+    void getCertificateForParticipantWithMultipleCertificates() {
+
+        ParticipantDidDataEntity participantEntity = new ParticipantDidDataEntity();
+        participantEntity.setParticipantId(UUID.fromString(OTHER_PARTICIPANT));
+        participantEntity.setVerificationMethods(List.of(new VerificationMethodEntity(null, "cert1", "certificate 1"),
+            new VerificationMethodEntity(null, "cert2", "certificate 2")));
+        participantDidDataRepository.save(participantEntity);
+
+        assertEquals("certificate 2", sut.getParticipantCertificate(OTHER_PARTICIPANT, "cert2"));
+        verify(participantDidDataRepository, never()).findByParticipantId(any());
+    }
+
     // get non-existing certificate for existing participant
     @Test
     void getNonExistingCertificateForExistingParticipant() {
 
         assertThrows(CertificateNotFoundException.class,
-            () -> sut.getParticipantCertificate("existing-participant", "unknown-certificate"));
+            () -> sut.getParticipantCertificate(EXISTING_PARTICIPANT, "unknown-certificate"));
+    }
+
+    @Test
+    void getRenderedCertificateFromCache() {
+
+        RenderedResource first = sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+        RenderedResource second = sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+
+        assertSame(first, second);
+        assertEquals("certificate", new String(first.getContent(), StandardCharsets.UTF_8));
+        verify(participantDidDataRepository, times(1)).findCertificateByParticipantIdAndCertificateId(any(), any());
+        verify(participantDidDataRepository, never()).findByParticipantId(any());
+    }
+
+    @Test
+    void getRenderedCertificateStaleWhileDatabaseUnavailable() {
+
+        RenderedResource current = sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+        certificateServiceImpl.evictAll();
+        doThrow(new DataAccessResourceFailureException("database unavailable")).when(participantDidDataRepository)
+            .findCertificateByParticipantIdAndCertificateId(any(), any());
+
+        RenderedResource stale = sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+
+        assertTrue(stale.isStale());
+        assertFalse(current.isStale());
+        assertArrayEquals(current.getContent(), stale.getContent());
+        assertEquals(current.getEtag(), stale.getEtag());
+    }
+
+    @Test
+    void getRenderedCertificateWithoutLastKnownGoodWhileDatabaseUnavailable() {
+
+        doThrow(new DataAccessResourceFailureException("database unavailable")).when(participantDidDataRepository)
+            .findCertificateByParticipantIdAndCertificateId(any(), any());
+
+        assertThrows(DataAccessResourceFailureException.class,
+            () -> sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "never-requested-certificate"));
+    }
+
+    @Test
+    void getRenderedCertificateRecordsOutcomes() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        certificateServiceImpl.bindTo(meterRegistry);
+
+        sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+        sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "existing-certificate");
+        assertThrows(CertificateNotFoundException.class,
+            () -> sut.getRenderedParticipantCertificate(EXISTING_PARTICIPANT, "unknown-certificate"));
+
+        assertEquals(1, meterRegistry.get("resource.requests").tag("type", "certificate").tag("outcome", "miss").timer()
+            .count());
+        assertEquals(1, meterRegistry.get("resource.requests").tag("type", "certificate").tag("outcome", "hit").timer()
+            .count());
+        assertEquals(1,
+            meterRegistry.get("resource.requests").tag("type", "certificate").tag("outcome", "not-found").timer()
+                .count());
+        assertEquals(1,
+            meterRegistry.get("resource.fetch").tag("type", "certificate").tag("outcome", "success").timer().count());
+        assertEquals(1,
+            meterRegistry.get("resource.fetch").tag("type", "certificate").tag("outcome", "not-found").timer().count());
+    }
+
+    @Test
+    void getRenderedCommonCertificate() throws CertificateException {
+
+        RenderedResource commonCert = sut.getRenderedCommonCertificate();
+        assertEquals(sut.getCommonCertificate(), new String(commonCert.getContent(), StandardCharsets.UTF_8));
+        assertEquals(sut.convertPemStringToCertificate(sut.getCommonCertificate()).getNotBefore().toInstant(),
+            commonCert.getLastModified());
     }
 
     @Test
@@ -102,11 +209,77 @@ class CertificateServiceTests {
         assertThrows(CertificateException.class, () -> sut.convertPemStringToCertificate("garbage"));
     }
 
+    @Test
+    void convertCertificateFromCache() throws CertificateException {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        certificateServiceImpl.bindTo(meterRegistry);
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "certificates").tag("result", "hit")
+            .functionCounter().count();
+
+        X509Certificate first = sut.convertPemStringToCertificate(CertificateServiceFake.EXAMPLE_CERTIFICATE);
+        X509Certificate second = sut.convertPemStringToCertificate(
+            new String(CertificateServiceFake.EXAMPLE_CERTIFICATE.toCharArray()));
+
+        assertSame(first, second);
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", "certificates").tag("result", "hit").functionCounter()
+            .count() > hitsBefore);
+    }
+
+    @Test
+    void convertCertificateBadInputRecordsParseOutcome() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        certificateServiceImpl.bindTo(meterRegistry);
+
+        assertThrows(CertificateException.class, () -> sut.convertPemStringToCertificate("garbage"));
+
+        assertEquals(1, meterRegistry.get("certificate.parse").tag("outcome", "invalid").timer().count());
+        assertEquals(0, meterRegistry.get("certificate.parse").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void getPublicJwkSuccessfully() throws CertificateException {
+
+        PublicJwk publicJwk = sut.getPublicJwk(CertificateServiceFake.EXAMPLE_CERTIFICATE);
+
+        RSAPublicKey publicKey = (RSAPublicKey) sut.convertPemStringToCertificate(
+            CertificateServiceFake.EXAMPLE_CERTIFICATE).getPublicKey();
+        assertEquals("RSA", publicJwk.getKty());
+        assertEquals("PS256", publicJwk.getAlg());
+        assertEquals(Base64.getUrlEncoder().encodeToString(publicKey.getModulus().toByteArray()), publicJwk.getN());
+        assertEquals(Base64.getUrlEncoder().encodeToString(publicKey.getPublicExponent().toByteArray()),
+            publicJwk.getE());
+        assertNull(publicJwk.getX5u());
+        assertSame(publicJwk, sut.getPublicJwk(CertificateServiceFake.EXAMPLE_CERTIFICATE));
+    }
+
+    @Test
+    void getPublicJwkWithoutCertificateCache() throws CertificateException {
+
+        CertificateServiceImpl uncached = new CertificateServiceImpl(false, null, 10, Duration.ofMinutes(10), 0,
+            DataSize.ofMegabytes(64), false, 0, Duration.ofDays(1), participantDidDataRepository,
+            new DidWebUrlServiceFake("localhost:8443"), participantFilterService);
+
+        PublicJwk first = uncached.getPublicJwk(CertificateServiceFake.EXAMPLE_CERTIFICATE);
+        PublicJwk second = uncached.getPublicJwk(CertificateServiceFake.EXAMPLE_CERTIFICATE);
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    void getPublicJwkBadInput() {
+
+        assertThrows(CertificateException.class, () -> sut.getPublicJwk("garbage"));
+    }
+
     private void storeExampleParticipant() {
 
         VerificationMethodEntity vmEntity = new VerificationMethodEntity(null, "existing-certificate", "certificate");
-        ParticipantDidDataEntity participantEntity = new ParticipantDidDataEntity(null,
-            "did:web:localhost%3A8443:participant:existing-participant", List.of(vmEntity), Collections.emptyList());
+        ParticipantDidDataEntity participantEntity = new ParticipantDidDataEntity();
+        participantEntity.setParticipantId(UUID.fromString(EXISTING_PARTICIPANT));
+        participantEntity.setVerificationMethods(List.of(vmEntity));
+        participantEntity.setAliases(Collections.emptyList());
         participantDidDataRepository.save(participantEntity);
     }
 
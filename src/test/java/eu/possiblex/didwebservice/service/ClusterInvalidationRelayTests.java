@@ -0,0 +1,269 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import eu.possiblex.didwebservice.repositories.ParticipantChangeRepository;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two nodes as separate application contexts on a shared in-memory database.
+ */
+class ClusterInvalidationRelayTests {
+
+    private ConfigurableApplicationContext nodeA;
+
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void setUp() {
+
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void pollChangesOnDatabaseWithoutNotify() {
+
+        assertEquals(ClusterInvalidationRelay.Mode.POLL, nodeA.getBean(ClusterInvalidationRelay.class).getMode());
+    }
+
+    @Test
+    void receivedUntilAdvancesWithPolls() {
+
+        ClusterInvalidationRelay relay = nodeB.getBean(ClusterInvalidationRelay.class);
+        Instant before = Instant.now();
+
+        assertNotNull(relay.getReceivedUntil());
+        await(() -> !relay.getReceivedUntil().isBefore(before));
+    }
+
+    @Test
+    void updateOnOneNodeEvictsCachesOfOtherNode() {
+
+        DidManagementService managementA = nodeA.getBean(DidManagementService.class);
+        DidDocumentService documentsB = nodeB.getBean(DidDocumentService.class);
+
+        ParticipantDidTo participant = managementA.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("update-subject", List.of("https://before.example.com"),
+                Collections.emptyMap()));
+        String participantId = getParticipantId(participant);
+        assertEquals(List.of("https://before.example.com"),
+            documentsB.getParticipantDidDocument(participantId).getAlsoKnownAs());
+        assertTrue(renderedDocumentOf(documentsB, participantId).contains("https://before.example.com"));
+
+        managementA.updateParticipantDidWeb(
+            new ParticipantDidUpdateRequestTo(participant.getDid(), List.of("https://after.example.com"), null));
+
+        await(() -> documentsB.getParticipantDidDocument(participantId).getAlsoKnownAs()
+            .equals(List.of("https://after.example.com")) && renderedDocumentOf(documentsB, participantId).contains(
+            "https://after.example.com"));
+    }
+
+    @Test
+    void removeOnOneNodeEvictsCachesOfOtherNode() {
+
+        DidManagementService managementA = nodeA.getBean(DidManagementService.class);
+        DidDocumentService documentsB = nodeB.getBean(DidDocumentService.class);
+
+        ParticipantDidTo participant = managementA.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("remove-subject", Collections.emptyList(), Collections.emptyMap()));
+        String participantId = getParticipantId(participant);
+        assertNotNull(documentsB.getRenderedParticipantDidDocument(participantId));
+
+        managementA.removeParticipantDidWeb(participant.getDid());
+
+        await(() -> {
+            try {
+                documentsB.getRenderedParticipantDidDocument(participantId);
+                return false;
+            } catch (ParticipantNotFoundException e) {
+                return true;
+            }
+        });
+    }
+
+    @Test
+    void changeIsBroadcastWithSingleConnection() {
+
+        try (ConfigurableApplicationContext node = startNode("--spring.datasource.hikari.maximum-pool-size=1",
+            "--spring.datasource.hikari.connection-timeout=1000")) {
+            DidManagementService management = node.getBean(DidManagementService.class);
+
+            ParticipantDidTo participant = management.generateParticipantDidWeb(
+                new ParticipantDidCreateRequestTo("single-connection-subject", Collections.emptyList(),
+                    Collections.emptyMap()));
+
+            String participantId = getParticipantId(participant);
+            assertTrue(node.getBean(ParticipantChangeRepository.class).findAll().stream()
+                .anyMatch(change -> change.getParticipantId().equals(participantId)));
+        }
+    }
+
+    @Test
+    void changeIsCommittedWhenBroadcastFails() {
+
+        try (ConfigurableApplicationContext node = startNodeOnDatabase("broadcast-failure")) {
+            new JdbcTemplate(node.getBean(DataSource.class)).execute("DROP TABLE participant_change");
+
+            ParticipantDidTo participant = node.getBean(DidManagementService.class).generateParticipantDidWeb(
+                new ParticipantDidCreateRequestTo("broadcast-failure-subject", Collections.emptyList(),
+                    Collections.emptyMap()));
+
+            assertTrue(node.getBean(ParticipantDidDataRepository.class)
+                .existsByParticipantId(UUID.fromString(getParticipantId(participant))));
+        }
+    }
+
+    @Test
+    void changeCommittedAfterLaterChangeIsReceived() {
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        nodeB.addApplicationListener(event -> {
+            if (event instanceof PayloadApplicationEvent<?> payloadEvent
+                && payloadEvent.getPayload() instanceof ParticipantDidChangedEvent changedEvent) {
+                received.add(changedEvent.participantId());
+            }
+        });
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(nodeA.getBean(DataSource.class));
+        String later = UUID.randomUUID().toString();
+        String earlier = UUID.randomUUID().toString();
+
+        // a change whose id was assigned first may be committed after a change with a higher id was already polled
+        insertChange(jdbcTemplate, 2_000_000_000L, later);
+        await(() -> received.contains(later));
+        insertChange(jdbcTemplate, 1_000_000_000L, earlier);
+
+        await(() -> received.contains(earlier));
+        assertEquals(1, received.stream().filter(later::equals).count());
+    }
+
+    @Test
+    void remoteChangeEvictsOnlyChangedParticipantFromSecondLevelCache() {
+
+        DidManagementService managementA = nodeA.getBean(DidManagementService.class);
+        ParticipantDidDataRepository repositoryB = nodeB.getBean(ParticipantDidDataRepository.class);
+        Cache cacheB = nodeB.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache();
+        List<String> received = new CopyOnWriteArrayList<>();
+        nodeB.addApplicationListener(event -> {
+            if (event instanceof PayloadApplicationEvent<?> payloadEvent
+                && payloadEvent.getPayload() instanceof ParticipantDidChangedEvent changedEvent) {
+                received.add(changedEvent.participantId());
+            }
+        });
+
+        ParticipantDidTo changed = managementA.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("evicted-subject", Collections.emptyList(), Collections.emptyMap()));
+        ParticipantDidTo unchanged = managementA.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("kept-subject", Collections.emptyList(), Collections.emptyMap()));
+        // the creations are received as changes as well, so only cache the participants once they were processed
+        await(() -> received.contains(getParticipantId(changed)) && received.contains(getParticipantId(unchanged)));
+        Long changedId = repositoryB.findByParticipantId(UUID.fromString(getParticipantId(changed))).getId();
+        Long unchangedId = repositoryB.findByParticipantId(UUID.fromString(getParticipantId(unchanged))).getId();
+        assertTrue(cacheB.containsEntity(ParticipantDidDataEntity.class, changedId));
+        assertTrue(cacheB.containsEntity(ParticipantDidDataEntity.class, unchangedId));
+
+        managementA.updateParticipantDidWeb(
+            new ParticipantDidUpdateRequestTo(changed.getDid(), List.of("https://changed.example.com"), null));
+
+        await(() -> !cacheB.containsEntity(ParticipantDidDataEntity.class, changedId));
+        assertTrue(cacheB.containsEntity(ParticipantDidDataEntity.class, unchangedId));
+    }
+
+    private static ConfigurableApplicationContext startNode(String... args) {
+
+        return startNodeOnDatabase("cluster-invalidation", args);
+    }
+
+    private static ConfigurableApplicationContext startNodeOnDatabase(String database, String... args) {
+
+        List<String> arguments = new ArrayList<>(
+            List.of("--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=update", "--cluster-invalidation.enabled=true",
+                "--cluster-invalidation.poll-interval=50ms"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(DidWebServiceApplication.class).web(WebApplicationType.NONE)
+            .run(arguments.toArray(String[]::new));
+    }
+
+    private static void insertChange(JdbcTemplate jdbcTemplate, long id, String participantId) {
+
+        jdbcTemplate.update(
+            "INSERT INTO participant_change (id, participant_id, origin_node_id, changed_at) VALUES (?, ?, ?, ?)", id,
+            participantId, "other-node", Timestamp.from(Instant.now()));
+    }
+
+    private static String getParticipantId(ParticipantDidTo participant) {
+
+        return participant.getDid().substring(participant.getDid().lastIndexOf(':') + 1);
+    }
+
+    private static String renderedDocumentOf(DidDocumentService didDocumentService, String participantId) {
+
+        return new String(didDocumentService.getRenderedParticipantDidDocument(participantId).getContent(),
+            StandardCharsets.UTF_8);
+    }
+
+    private static void await(BooleanSupplier condition) {
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 10 seconds");
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = { DidDocumentRenderJobTests.TestConfig.class, DidDocumentRenderJob.class,
+    DidWebServiceApplication.class })
+@TestPropertySource(properties = { "did-document-render-job.enabled=false", "did-document-render-job.batch-size=2" })
+@Transactional
+@RecordApplicationEvents
+class DidDocumentRenderJobTests {
+
+    @Autowired
+    private DidDocumentRenderJob sut;
+
+    @Autowired
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @Autowired
+    private DidDocumentService didDocumentService;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    void renderOutdatedDidDocuments() {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000001", null));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000002", "outdated"));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000003", "outdated"));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000004",
+            didDocumentService.getDidDocumentFingerprint()));
+
+        assertEquals(3, sut.renderOutdatedDidDocuments());
+
+        for (ParticipantDidDataEntity participant : participantDidDataRepository.findAll()) {
+            assertEquals(didDocumentService.getDidDocumentFingerprint(), participant.getDidDocumentFingerprint());
+            assertNotNull(participant.getDidDocument());
+        }
+        assertEquals(3, applicationEvents.stream(ParticipantDidChangedEvent.class).count());
+        assertEquals(0, sut.renderOutdatedDidDocuments());
+    }
+
+    @Test
+    void renderOutdatedDidDocumentsUpdatesOnlyChangedParticipants() {
+
+        ParticipantDidDataEntity changed = getTestParticipant("00000000-0000-0000-0000-000000000001", "outdated");
+        ParticipantDidDataEntity unchanged = getTestParticipant("00000000-0000-0000-0000-000000000002", "outdated");
+        didDocumentService.materializeParticipantDidDocument(unchanged);
+        unchanged.setDidDocumentFingerprint("outdated");
+        participantDidDataRepository.save(changed);
+        participantDidDataRepository.save(unchanged);
+
+        assertEquals(2, sut.renderOutdatedDidDocuments());
+
+        assertTrue(changed.getUpdatedAt().isAfter(Instant.EPOCH));
+        assertEquals(Instant.EPOCH, unchanged.getUpdatedAt());
+    }
+
+    private ParticipantDidDataEntity getTestParticipant(String participantId, String fingerprint) {
+
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(UUID.fromString(participantId));
+        participantDidDataEntity.setVerificationMethods(Collections.emptyList());
+        participantDidDataEntity.setAliases(Collections.emptyList());
+        participantDidDataEntity.setDidDocument(fingerprint == null ? null : "{}");
+        participantDidDataEntity.setDidDocumentFingerprint(fingerprint);
+        participantDidDataEntity.setUpdatedAt(Instant.EPOCH);
+        return participantDidDataEntity;
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public DidDocumentService didDocumentService() {
+
+            return Mockito.spy(new DidDocumentServiceFake());
+        }
+    }
+}
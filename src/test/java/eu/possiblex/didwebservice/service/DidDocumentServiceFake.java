@@ -16,15 +16,25 @@
 
 package eu.possiblex.didwebservice.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.possiblex.didwebservice.models.did.DidDocument;
 import eu.possiblex.didwebservice.models.did.PublicJwk;
 import eu.possiblex.didwebservice.models.did.VerificationMethod;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.exceptions.DidDocumentGenerationException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import org.springframework.dao.DataAccessResourceFailureException;
 
+import java.time.Instant;
 import java.util.List;
 
 public class DidDocumentServiceFake implements DidDocumentService {
+    public static final Instant LAST_MODIFIED = Instant.parse("2024-01-01T00:00:00Z");
+
+    public static final String FINGERPRINT = "some-fingerprint";
+
     @Override
     public DidDocument getParticipantDidDocument(String id) {
 
@@ -51,4 +61,46 @@ public class DidDocumentServiceFake implements DidDocumentService {
                     PublicJwk.builder().alg("RS256").e("AQAB").kty("RSA").x5u("https://example.com/cert.pem").n("12345")
                         .build()).build())).build();
     }
+
+    @Override
+    public RenderedResource getRenderedParticipantDidDocument(String id) {
+
+        if (id.equals("stale-participant")) {
+            return render(getParticipantDidDocument(id)).asStale();
+        }
+
+        if (id.equals("unavailable-participant")) {
+            throw new DataAccessResourceFailureException("database unavailable");
+        }
+
+        return render(getParticipantDidDocument(id));
+    }
+
+    @Override
+    public RenderedResource getRenderedCommonDidDocument() {
+
+        return render(getCommonDidDocument());
+    }
+
+    @Override
+    public void materializeParticipantDidDocument(ParticipantDidDataEntity participantDidDataEntity) {
+
+        participantDidDataEntity.setDidDocument("{\"id\":\"" + participantDidDataEntity.getParticipantId() + "\"}");
+        participantDidDataEntity.setDidDocumentFingerprint(FINGERPRINT);
+    }
+
+    @Override
+    public String getDidDocumentFingerprint() {
+
+        return FINGERPRINT;
+    }
+
+    private RenderedResource render(DidDocument didDocument) {
+
+        try {
+            return new RenderedResource(new ObjectMapper().writeValueAsBytes(didDocument), LAST_MODIFIED);
+        } catch (JsonProcessingException e) {
+            throw new DidDocumentGenerationException(e.getMessage());
+        }
+    }
 }
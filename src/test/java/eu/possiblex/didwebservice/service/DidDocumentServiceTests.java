@@ -16,15 +16,28 @@
 
 package eu.possiblex.didwebservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.possiblex.didwebservice.DidWebServiceApplication;
 import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.did.PublicJwk;
 import eu.possiblex.didwebservice.models.did.VerificationMethod;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
+import eu.possiblex.didwebservice.models.dto.RenderedResource;
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.models.events.AllParticipantsChangedEvent;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
 import eu.possiblex.didwebservice.models.exceptions.DidDocumentGenerationException;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import eu.possiblex.didwebservice.repositories.MaterializedDidDocument;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,19 +45,25 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 @ContextConfiguration(classes = { DidDocumentServiceTests.TestConfig.class, DidDocumentServiceImpl.class,
@@ -52,6 +71,9 @@ import static org.mockito.Mockito.when;
 @Transactional
 class DidDocumentServiceTests {
 
+    private static final String PARTICIPANT_DID =
+        "did:web:localhost%3A8443:participant:c0334816-5608-387d-b935-7894158d4b1c";
+
     @Autowired
     private DidDocumentService sut;
 
@@ -64,6 +86,28 @@ class DidDocumentServiceTests {
     @Autowired
     private CertificateService certificateService;
 
+    @Autowired
+    private DidDocumentServiceImpl didDocumentServiceImpl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DidManagementService didManagementService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+
+        didDocumentServiceImpl.evictAll();
+        entityManager.getEntityManagerFactory().getCache().evictAll();
+    }
+
     @Test
     void getCommonDidDocument() {
 
@@ -79,22 +123,341 @@ class DidDocumentServiceTests {
         participantDidDataEntity.setVerificationMethods(List.of(new VerificationMethodEntity(null, "vm1", "cert1"),
             new VerificationMethodEntity(null, "vm2", "cert2")));
         List<String> vmIdsWithCommonVm = new ArrayList<>(participantDidDataEntity.getVerificationMethods().stream()
-            .map(vm -> participantDidDataEntity.getDid() + "#" + vm.getCertificateId()).toList());
-        vmIdsWithCommonVm.add(participantDidDataEntity.getDid() + "#" + commonVerificationMethodId);
+            .map(vm -> PARTICIPANT_DID + "#" + vm.getCertificateId()).toList());
+        vmIdsWithCommonVm.add(PARTICIPANT_DID + "#" + commonVerificationMethodId);
         participantDidDataRepository.save(participantDidDataEntity);
 
         DidDocument actual = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
 
-        assertEquals(actual.getId(), participantDidDataEntity.getDid());
+        assertEquals(actual.getId(), PARTICIPANT_DID);
         assertIterableEquals(actual.getAlsoKnownAs(), participantDidDataEntity.getAliases());
         assertThat(vmIdsWithCommonVm).containsExactlyInAnyOrderElementsOf(
             actual.getVerificationMethod().stream().map(VerificationMethod::getId).toList());
     }
 
+    @Test
+    void getParticipantDidDocumentFromStoredJwk() {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        VerificationMethodEntity vmEntity = new VerificationMethodEntity(null, "vm1", "cert1");
+        vmEntity.setKty("RSA");
+        vmEntity.setN("n-value");
+        vmEntity.setE("AQAB");
+        vmEntity.setAlg("PS256");
+        participantDidDataEntity.setVerificationMethods(List.of(vmEntity));
+        participantDidDataRepository.save(participantDidDataEntity);
+        clearInvocations(certificateService);
+
+        DidDocument actual = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        PublicJwk publicJwk = actual.getVerificationMethod().get(0).getPublicKeyJwk();
+        assertEquals(PARTICIPANT_DID + "#vm1", actual.getVerificationMethod().get(0).getId());
+        assertEquals(new PublicJwk("RSA", "n-value", "AQAB", "PS256",
+            "https://localhost:8443/participant/c0334816-5608-387d-b935-7894158d4b1c/vm1.pem"), publicJwk);
+        verifyNoInteractions(certificateService);
+    }
+
+    @Test
+    void getParticipantDidDocumentWithSingleQuery() {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setAliases(List.of("alias1"));
+        participantDidDataEntity.setVerificationMethods(List.of(new VerificationMethodEntity(null, "vm1", "cert1"),
+            new VerificationMethodEntity(null, "vm2", "cert2"), new VerificationMethodEntity(null, "vm3", "cert3")));
+        participantDidDataRepository.save(participantDidDataEntity);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        DidDocument actual = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertEquals(4, actual.getVerificationMethod().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void getParticipantDidDocumentFromSecondLevelCache() {
+
+        ParticipantDidTo participant = didManagementService.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("some subject", List.of("alias1"), Map.of("certId", "certContent")));
+        try {
+            DidDocument first = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+            didDocumentServiceImpl.evictAll();
+            Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+            statistics.clear();
+
+            DidDocument second = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+            assertNotSame(first, second);
+            assertEquals(first, second);
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        } finally {
+            didManagementService.removeParticipantDidWeb(participant.getDid());
+        }
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void getParticipantDidDocumentFromDatabaseAfterAllParticipantsChanged() {
+
+        ParticipantDidTo participant = didManagementService.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("some subject", List.of("alias1"), Map.of("certId", "certContent")));
+        try {
+            DidDocument first = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+            Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+            statistics.clear();
+
+            participantDidDataRepository.evictAllCachedParticipants();
+            eventPublisher.publishEvent(new AllParticipantsChangedEvent());
+            DidDocument second = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+            assertNotSame(first, second);
+            assertEquals(first, second);
+            assertEquals(0, statistics.getNaturalIdCacheHitCount());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            didManagementService.removeParticipantDidWeb(participant.getDid());
+        }
+    }
+
+    @Test
+    void getParticipantDidDocumentFromCache() {
+
+        participantDidDataRepository.save(getTestParticipantCertificate());
+
+        DidDocument first = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        DidDocument second = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertSame(first, second);
+        verify(participantDidDataRepository, times(1)).findByParticipantId(
+            UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c"));
+    }
+
+    @Test
+    void getParticipantDidDocumentRecordsOutcomes() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        didDocumentServiceImpl.bindTo(meterRegistry);
+        participantDidDataRepository.save(getTestParticipantCertificate());
+
+        sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        assertThrows(ParticipantNotFoundException.class,
+            () -> sut.getParticipantDidDocument("00000000-0000-0000-0000-000000000000"));
+
+        assertEquals(1,
+            meterRegistry.get("resource.requests").tag("type", "did-document-model").tag("outcome", "miss").timer()
+                .count());
+        assertEquals(1,
+            meterRegistry.get("resource.requests").tag("type", "did-document-model").tag("outcome", "hit").timer()
+                .count());
+        assertEquals(1,
+            meterRegistry.get("resource.requests").tag("type", "did-document-model").tag("outcome", "not-found")
+                .timer().count());
+        assertEquals(1,
+            meterRegistry.get("resource.fetch").tag("type", "participant").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("did.document.build").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void getParticipantDidDocumentCoalescesConcurrentLoads() throws Exception {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return participantDidDataEntity;
+        }).when(participantDidDataRepository).findByParticipantId(participantDidDataEntity.getParticipantId());
+
+        List<Future<DidDocument>> results = runConcurrently(
+            () -> sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c"), loading, release);
+
+        DidDocument first = results.get(0).get();
+        for (Future<DidDocument> result : results) {
+            assertSame(first, result.get());
+        }
+        verify(participantDidDataRepository, times(1)).findByParticipantId(
+            participantDidDataEntity.getParticipantId());
+    }
+
+    @Test
+    void getParticipantDidDocumentSharesLoadErrorWithConcurrentCallers() throws Exception {
+
+        UUID participantId = UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return null;
+        }).when(participantDidDataRepository).findByParticipantId(participantId);
+
+        List<Future<DidDocument>> results = runConcurrently(
+            () -> sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c"), loading, release);
+
+        for (Future<DidDocument> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(ParticipantNotFoundException.class, e.getCause());
+        }
+        verify(participantDidDataRepository, times(1)).findByParticipantId(participantId);
+    }
+
+    @Test
+    void getParticipantDidDocumentAfterChangeEvent() {
+
+        ParticipantDidDataEntity participantDidDataEntity = participantDidDataRepository.save(
+            getTestParticipantCertificate());
+        sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        participantDidDataEntity.setAliases(List.of("alias1"));
+        didDocumentServiceImpl.onParticipantDidChanged(
+            new ParticipantDidChangedEvent("c0334816-5608-387d-b935-7894158d4b1c"));
+
+        DidDocument actual = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        assertIterableEquals(List.of("alias1"), actual.getAlsoKnownAs());
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentCorrectly() throws IOException {
+
+        participantDidDataRepository.save(getTestParticipantCertificate());
+
+        RenderedResource first = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        RenderedResource second = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertSame(first, second);
+        assertEquals(sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c"),
+            objectMapper.readValue(first.getContent(), DidDocument.class));
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentFromStoredDocument() {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setDidDocument("{\"id\":\"stored\"}");
+        participantDidDataEntity.setDidDocumentFingerprint(sut.getDidDocumentFingerprint());
+        participantDidDataRepository.save(participantDidDataEntity);
+
+        RenderedResource rendered = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertEquals("{\"id\":\"stored\"}", new String(rendered.getContent(), StandardCharsets.UTF_8));
+        verify(participantDidDataRepository, never()).findByParticipantId(any());
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentWithOutdatedStoredDocument() throws IOException {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setDidDocument("{\"id\":\"stored\"}");
+        participantDidDataEntity.setDidDocumentFingerprint("outdated");
+        participantDidDataRepository.save(participantDidDataEntity);
+
+        RenderedResource rendered = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertEquals(PARTICIPANT_DID,
+            objectMapper.readValue(rendered.getContent(), DidDocument.class).getId());
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentStaleWhileDatabaseUnavailable() {
+
+        participantDidDataRepository.save(getTestParticipantCertificate());
+        RenderedResource current = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        didDocumentServiceImpl.evictAll();
+        makeDatabaseUnavailable();
+
+        RenderedResource stale = sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        assertTrue(stale.isStale());
+        assertArrayEquals(current.getContent(), stale.getContent());
+        assertEquals(current.getEtag(), stale.getEtag());
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentNotStaleAfterChangeEvent() {
+
+        participantDidDataRepository.save(getTestParticipantCertificate());
+        sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        didDocumentServiceImpl.onParticipantDidChanged(
+            new ParticipantDidChangedEvent("c0334816-5608-387d-b935-7894158d4b1c"));
+        makeDatabaseUnavailable();
+
+        assertThrows(DataAccessResourceFailureException.class,
+            () -> sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c"));
+    }
+
+    @Test
+    void getRenderedParticipantDidDocumentNotStaleAfterChangeEventDuringLoad() {
+
+        ParticipantDidDataEntity participantDidDataEntity = participantDidDataRepository.save(
+            getTestParticipantCertificate());
+        MaterializedDidDocument loaded = participantDidDataRepository.findMaterializedDidDocumentByParticipantId(
+            participantDidDataEntity.getParticipantId());
+        doAnswer(invocation -> {
+            didDocumentServiceImpl.onParticipantDidChanged(
+                new ParticipantDidChangedEvent("c0334816-5608-387d-b935-7894158d4b1c"));
+            return loaded;
+        }).when(participantDidDataRepository).findMaterializedDidDocumentByParticipantId(any());
+        sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+        makeDatabaseUnavailable();
+
+        assertThrows(DataAccessResourceFailureException.class,
+            () -> sut.getRenderedParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c"));
+    }
+
+    @Test
+    void materializeParticipantDidDocumentCorrectly() throws IOException {
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setAliases(List.of("alias1"));
+
+        sut.materializeParticipantDidDocument(participantDidDataEntity);
+
+        assertEquals(sut.getDidDocumentFingerprint(), participantDidDataEntity.getDidDocumentFingerprint());
+        DidDocument stored = objectMapper.readValue(participantDidDataEntity.getDidDocument(), DidDocument.class);
+        assertEquals(PARTICIPANT_DID, stored.getId());
+        assertIterableEquals(List.of("alias1"), stored.getAlsoKnownAs());
+    }
+
+    @Test
+    void materializeParticipantDidDocumentGenerationFails() throws CertificateException {
+
+        when(certificateService.convertPemStringToCertificate(any())).thenThrow(
+            new CertificateException("bad certificate"));
+
+        ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setVerificationMethods(List.of(new VerificationMethodEntity(null, "vm1", "cert1")));
+
+        sut.materializeParticipantDidDocument(participantDidDataEntity);
+
+        assertNull(participantDidDataEntity.getDidDocument());
+        assertEquals(sut.getDidDocumentFingerprint(), participantDidDataEntity.getDidDocumentFingerprint());
+
+        reset(certificateService);
+    }
+
+    @Test
+    void getRenderedCommonDidDocumentCorrectly() throws IOException, CertificateException {
+
+        RenderedResource rendered = sut.getRenderedCommonDidDocument();
+
+        assertEquals(sut.getCommonDidDocument(), objectMapper.readValue(rendered.getContent(), DidDocument.class));
+        assertEquals(certificateService.convertPemStringToCertificate(certificateService.getCommonCertificate())
+            .getNotBefore().toInstant(), rendered.getLastModified());
+    }
+
     @Test
     void getNonExistentParticipantDidDocument() {
 
         assertThrows(ParticipantNotFoundException.class, () -> sut.getParticipantDidDocument("non-existent"));
+        verify(participantDidDataRepository, never()).findByParticipantId(any());
     }
 
     @Test
@@ -104,6 +467,7 @@ class DidDocumentServiceTests {
             new CertificateException("bad certificate"));
 
         ParticipantDidDataEntity participantDidDataEntity = getTestParticipantCertificate();
+        participantDidDataEntity.setVerificationMethods(List.of(new VerificationMethodEntity(null, "vm1", "cert1")));
         participantDidDataRepository.save(participantDidDataEntity);
 
         assertThrows(DidDocumentGenerationException.class,
@@ -112,15 +476,61 @@ class DidDocumentServiceTests {
         reset(certificateService);
     }
 
+    @Test
+    void getParticipantDidDocumentReusesCommonVerificationMethod() {
+
+        participantDidDataRepository.save(getTestParticipantCertificate());
+        clearInvocations(certificateService);
+
+        DidDocument actual = sut.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c");
+
+        VerificationMethod commonVerificationMethod = actual.getVerificationMethod().get(0);
+        assertEquals(actual.getId() + "#" + commonVerificationMethodId, commonVerificationMethod.getId());
+        assertSame(sut.getCommonDidDocument().getVerificationMethod().get(0).getPublicKeyJwk(),
+            commonVerificationMethod.getPublicKeyJwk());
+        verifyNoInteractions(certificateService);
+    }
+
     private ParticipantDidDataEntity getTestParticipantCertificate() {
 
         ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
-        participantDidDataEntity.setDid("did:web:localhost%3A8443:participant:c0334816-5608-387d-b935-7894158d4b1c");
+        participantDidDataEntity.setParticipantId(UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c"));
         participantDidDataEntity.setVerificationMethods(Collections.emptyList());
         participantDidDataEntity.setAliases(Collections.emptyList());
         return participantDidDataEntity;
     }
 
+    private void makeDatabaseUnavailable() {
+
+        DataAccessResourceFailureException e = new DataAccessResourceFailureException("database unavailable");
+        doThrow(e).when(participantDidDataRepository).findMaterializedDidDocumentByParticipantId(any());
+        doThrow(e).when(participantDidDataRepository).findByParticipantId(any());
+    }
+
+    /**
+     * Start many callers of the given task at once and release the first load once the other callers had time to
+     * request the same participant.
+     */
+    private <T> List<Future<T>> runConcurrently(Callable<T> task, CountDownLatch loading, CountDownLatch release)
+        throws InterruptedException {
+
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<T>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(task));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
     @TestConfiguration
     static class TestConfig {
         @Bean
@@ -17,6 +17,7 @@
 package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
@@ -37,6 +38,20 @@ public class DidManagementServiceFake implements DidManagementService {
             .aliases(request.getAliases()).build();
     }
 
+    @Override
+    public List<ParticipantDidCreateResultTo> generateParticipantDidWebs(List<ParticipantDidCreateRequestTo> requests) {
+
+        return requests.stream().map(request -> {
+            try {
+                return new ParticipantDidCreateResultTo(request.getSubject(),
+                    ParticipantDidCreateResultTo.Status.CREATED, generateParticipantDidWeb(request), null);
+            } catch (RequestArgumentException e) {
+                return new ParticipantDidCreateResultTo(request.getSubject(),
+                    ParticipantDidCreateResultTo.Status.REJECTED, null, e.getMessage());
+            }
+        }).toList();
+    }
+
     @Override
     public ParticipantDidTo updateParticipantDidWeb(ParticipantDidUpdateRequestTo request) {
 
@@ -52,6 +67,18 @@ public class DidManagementServiceFake implements DidManagementService {
             .verificationMethodIds(List.of(request.getDid() + "#somemethod")).aliases(request.getAliases()).build();
     }
 
+    @Override
+    public ParticipantDidTo getParticipantDidWebByAlias(String alias) {
+
+        if (alias.equals("https://unknown.example.com")) {
+            throw new ParticipantNotFoundException("alias not found");
+        }
+
+        return ParticipantDidTo.builder().did("did:web:example.com:participant:someorgltd")
+            .verificationMethodIds(List.of("did:web:example.com:participant:someorgltd#somemethod"))
+            .aliases(List.of(alias)).build();
+    }
+
     @Override
     public void removeParticipantDidWeb(String did) {
         // do nothing
@@ -18,13 +18,16 @@ package eu.possiblex.didwebservice.service;
 
 import eu.possiblex.didwebservice.DidWebServiceApplication;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateResultTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
 import eu.possiblex.didwebservice.models.dto.ParticipantDidUpdateRequestTo;
 import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
 import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
 import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
 import eu.possiblex.didwebservice.models.exceptions.RequestArgumentException;
 import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -37,10 +40,15 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -50,11 +58,15 @@ import static org.mockito.Mockito.*;
 @ContextConfiguration(classes = { DidManagementServiceTests.TestConfig.class, DidManagementServiceImpl.class,
     DidWebServiceApplication.class })
 @Transactional
+@RecordApplicationEvents
 class DidManagementServiceTests {
 
     @Autowired
     private DidManagementService sut;
 
+    @Autowired
+    private DidManagementServiceImpl didManagementServiceImpl;
+
     @SpyBean
     private ParticipantDidDataRepository participantDidDataRepository;
 
@@ -68,7 +80,13 @@ class DidManagementServiceTests {
     private ArgumentCaptor<ParticipantDidDataEntity> certificateArgumentCaptor;
 
     @Captor
-    private ArgumentCaptor<String> didStringArgumentCaptor;
+    private ArgumentCaptor<UUID> participantIdArgumentCaptor;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private DidDocumentService didDocumentService;
 
     @Test
     void generateDidWithoutOptionalsCorrectly() {
@@ -85,7 +103,11 @@ class DidManagementServiceTests {
         verify(participantDidDataRepository).save(certificateArgumentCaptor.capture());
         ParticipantDidDataEntity participant = certificateArgumentCaptor.getValue();
 
-        assertTrue(participant.getDid().matches(didRegex));
+        assertTrue(dto.getDid().endsWith(":participant:" + participant.getParticipantId()));
+        assertNotNull(participant.getCreatedAt());
+        assertEquals(participant.getCreatedAt(), participant.getUpdatedAt());
+        assertNotNull(participant.getDidDocument());
+        assertEquals(didDocumentService.getDidDocumentFingerprint(), participant.getDidDocumentFingerprint());
     }
 
     @Test
@@ -105,10 +127,16 @@ class DidManagementServiceTests {
         verify(participantDidDataRepository).save(certificateArgumentCaptor.capture());
         ParticipantDidDataEntity participant = certificateArgumentCaptor.getValue();
 
-        assertTrue(participant.getDid().matches(didRegex));
+        assertTrue(dto.getDid().endsWith(":participant:" + participant.getParticipantId()));
         assertIterableEquals(request.getAliases(), participant.getAliases());
         assertIterableEquals(request.getCertificates().keySet(),
             participant.getVerificationMethods().stream().map(VerificationMethodEntity::getCertificateId).toList());
+        VerificationMethodEntity vmEntity = participant.getVerificationMethods().get(0);
+        assertEquals("RSA", vmEntity.getKty());
+        assertEquals("PS256", vmEntity.getAlg());
+        assertNotNull(vmEntity.getN());
+        assertNotNull(vmEntity.getE());
+        assertNotNull(vmEntity.getThumbprint());
     }
 
     @Test
@@ -131,6 +159,61 @@ class DidManagementServiceTests {
         assertThrows(RequestArgumentException.class, () -> sut.generateParticipantDidWeb(request));
     }
 
+    @Test
+    void generateDidsReturnsResultInOrderOfRequests() {
+
+        sut.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("existing subject", Collections.emptyList(), Collections.emptyMap()));
+        clearInvocations(participantDidDataRepository);
+
+        List<ParticipantDidCreateResultTo> results = sut.generateParticipantDidWebs(
+            List.of(new ParticipantDidCreateRequestTo("new subject", List.of("alias1"), Map.of("certId", "certContent")),
+                new ParticipantDidCreateRequestTo(" ", Collections.emptyList(), Collections.emptyMap()),
+                new ParticipantDidCreateRequestTo("bad certificate", Collections.emptyList(),
+                    Map.of(commonVerificationMethodId, "certContent")),
+                new ParticipantDidCreateRequestTo("existing subject", Collections.emptyList(), Collections.emptyMap()),
+                new ParticipantDidCreateRequestTo("new subject", Collections.emptyList(), Collections.emptyMap())));
+
+        assertIterableEquals(List.of(ParticipantDidCreateResultTo.Status.CREATED,
+            ParticipantDidCreateResultTo.Status.REJECTED, ParticipantDidCreateResultTo.Status.REJECTED,
+            ParticipantDidCreateResultTo.Status.EXISTING, ParticipantDidCreateResultTo.Status.EXISTING),
+            results.stream().map(ParticipantDidCreateResultTo::getStatus).toList());
+        assertEquals("new subject", results.get(0).getSubject());
+        assertEquals(List.of("alias1"), results.get(0).getParticipantDid().getAliases());
+        assertEquals(results.get(0).getParticipantDid().getDid(), results.get(4).getParticipantDid().getDid());
+        assertNotNull(results.get(1).getError());
+        assertNull(results.get(2).getParticipantDid());
+        String did = results.get(0).getParticipantDid().getDid();
+        assertTrue(participantDidDataRepository.existsByParticipantId(
+            UUID.fromString(did.substring(did.lastIndexOf(':') + 1))));
+        verify(participantDidDataRepository, never()).save(any());
+        assertEquals(1, applicationEvents.stream(ParticipantDidChangedEvent.class).filter(
+            e -> did.endsWith(":participant:" + e.participantId())).count());
+    }
+
+    @Test
+    void generateDidsWithoutRequests() {
+
+        assertTrue(sut.generateParticipantDidWebs(Collections.emptyList()).isEmpty());
+        assertThrows(RequestArgumentException.class, () -> sut.generateParticipantDidWebs(null));
+    }
+
+    @Test
+    void generateDidsReturnsExistingParticipantLikeSingleCreation() {
+
+        ParticipantDidTo existing = sut.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("existing subject", Collections.emptyList(), Collections.emptyMap()));
+        ParticipantDidCreateRequestTo request = new ParticipantDidCreateRequestTo("existing subject",
+            Collections.emptyList(), Map.of(commonVerificationMethodId, "certContent"));
+
+        List<ParticipantDidCreateResultTo> results = sut.generateParticipantDidWebs(List.of(request));
+
+        assertEquals(existing.getDid(), sut.generateParticipantDidWeb(request).getDid());
+        assertEquals(ParticipantDidCreateResultTo.Status.EXISTING, results.get(0).getStatus());
+        assertEquals(existing.getDid(), results.get(0).getParticipantDid().getDid());
+        assertNull(results.get(0).getError());
+    }
+
     @Test
     void deleteExistingDidCorrectly() {
 
@@ -140,10 +223,11 @@ class DidManagementServiceTests {
 
         sut.removeParticipantDidWeb(did);
 
-        verify(participantDidDataRepository).deleteByDid(didStringArgumentCaptor.capture());
-        String didString = didStringArgumentCaptor.getValue();
+        verify(participantDidDataRepository).deleteByParticipantId(participantIdArgumentCaptor.capture());
 
-        assertTrue(did.matches(didString));
+        assertEquals(UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c"), participantIdArgumentCaptor.getValue());
+        assertTrue(applicationEvents.stream(ParticipantDidChangedEvent.class)
+            .anyMatch(e -> e.participantId().equals("c0334816-5608-387d-b935-7894158d4b1c")));
     }
 
     @Test
@@ -152,11 +236,20 @@ class DidManagementServiceTests {
         sut.generateParticipantDidWeb(
             new ParticipantDidCreateRequestTo("some subject", Collections.emptyList(), Collections.emptyMap()));
 
-        when(participantDidDataRepository.findByDid(any())).thenReturn(null);
+        when(participantDidDataRepository.existsByParticipantId(any())).thenReturn(false);
 
         sut.removeParticipantDidWeb("did:web:localhost%3A8443:participant:c0334816-5608-387d-b935-7894158d4b1c");
 
-        verify(participantDidDataRepository, never()).deleteByDid(any());
+        verify(participantDidDataRepository, never()).deleteByParticipantId(any());
+    }
+
+    @Test
+    void deleteDidWithoutUuid() {
+
+        sut.removeParticipantDidWeb("did:web:localhost%3A8443:participant:not-a-uuid");
+
+        verify(participantDidDataRepository, never()).existsByParticipantId(any());
+        verify(participantDidDataRepository, never()).deleteByParticipantId(any());
     }
 
     @Test
@@ -170,6 +263,8 @@ class DidManagementServiceTests {
 
         sut.generateParticipantDidWeb(
             new ParticipantDidCreateRequestTo("some subject", Collections.emptyList(), Collections.emptyMap()));
+        Instant createdAt = participantDidDataRepository.findByParticipantId(
+            UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c")).getCreatedAt();
 
         Map<String, String> certificates = Map.of("key1", "value1");
         List<String> aliases = List.of("alias1", "alias2");
@@ -181,12 +276,117 @@ class DidManagementServiceTests {
 
         sut.updateParticipantDidWeb(request);
 
-        ParticipantDidDataEntity entity = participantDidDataRepository.findByDid(
-            "did:web:localhost%3A8443:participant:c0334816-5608-387d-b935-7894158d4b1c");
+        ParticipantDidDataEntity entity = participantDidDataRepository.findByParticipantId(
+            UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c"));
 
         assertIterableEquals(aliases, entity.getAliases());
         assertIterableEquals(certificates.keySet(),
             entity.getVerificationMethods().stream().map(VerificationMethodEntity::getCertificateId).toList());
+        assertEquals(createdAt, entity.getCreatedAt());
+        assertTrue(entity.getDidDocument().contains("alias2"));
+        assertFalse(entity.getUpdatedAt().isBefore(createdAt));
+        assertEquals(2, applicationEvents.stream(ParticipantDidChangedEvent.class)
+            .filter(e -> e.participantId().equals("c0334816-5608-387d-b935-7894158d4b1c")).count());
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void updateExistingDidEvictsSecondLevelCache() {
+
+        ParticipantDidTo participant = sut.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("some subject", List.of("alias1"), Collections.emptyMap()));
+        try {
+            assertIterableEquals(List.of("alias1"),
+                didDocumentService.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c").getAlsoKnownAs());
+
+            ParticipantDidUpdateRequestTo request = new ParticipantDidUpdateRequestTo();
+            request.setDid(participant.getDid());
+            request.setAliases(List.of("alias2"));
+            sut.updateParticipantDidWeb(request);
+
+            assertIterableEquals(List.of("alias2"),
+                didDocumentService.getParticipantDidDocument("c0334816-5608-387d-b935-7894158d4b1c").getAlsoKnownAs());
+            assertIterableEquals(List.of("alias2"), participantDidDataRepository.findByParticipantId(
+                UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c")).getAliases());
+        } finally {
+            sut.removeParticipantDidWeb(participant.getDid());
+        }
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void updateExistingDidKeepingCertificateIdCommits() {
+
+        ParticipantDidTo participant = sut.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("some subject", Collections.emptyList(),
+                Map.of("cert1", "certContent", "cert2", "certContent")));
+        try {
+            ParticipantDidUpdateRequestTo request = new ParticipantDidUpdateRequestTo();
+            request.setDid(participant.getDid());
+            request.setCertificates(Map.of("cert1", "updatedContent", "cert3", "certContent"));
+
+            assertDoesNotThrow(() -> sut.updateParticipantDidWeb(request));
+
+            Map<String, String> stored = participantDidDataRepository.findByParticipantId(
+                    UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c")).getVerificationMethods().stream()
+                .collect(Collectors.toMap(VerificationMethodEntity::getCertificateId,
+                    VerificationMethodEntity::getCertificate));
+            assertEquals(Map.of("cert1", "updatedContent", "cert3", "certContent"), stored);
+        } finally {
+            sut.removeParticipantDidWeb(participant.getDid());
+        }
+    }
+
+    @Test
+    void managementOperationsRecordOutcomes() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        didManagementServiceImpl.bindTo(meterRegistry);
+
+        sut.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("some subject", Collections.emptyList(), Collections.emptyMap()));
+        assertThrows(RequestArgumentException.class,
+            () -> sut.generateParticipantDidWeb(new ParticipantDidCreateRequestTo()));
+        ParticipantDidUpdateRequestTo request = new ParticipantDidUpdateRequestTo();
+        request.setDid("did:web:localhost%3A8443:participant:00000000-0000-0000-0000-000000000000");
+        assertThrows(ParticipantNotFoundException.class, () -> sut.updateParticipantDidWeb(request));
+
+        assertEquals(1, meterRegistry.get("did.management.operations").tag("operation", "create")
+            .tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("did.management.operations").tag("operation", "create")
+            .tag("outcome", "invalid").timer().count());
+        assertEquals(1, meterRegistry.get("did.management.operations").tag("operation", "update")
+            .tag("outcome", "not-found").timer().count());
+    }
+
+    @Test
+    void getDidByAliasCorrectly() {
+
+        ParticipantDidCreateRequestTo request = new ParticipantDidCreateRequestTo();
+        request.setSubject("ABC Company");
+        request.setAliases(List.of("https://abc.example.com", "https://abc.example.org"));
+        ParticipantDidTo created = sut.generateParticipantDidWeb(request);
+        request.setSubject("XYZ Company");
+        request.setAliases(List.of("https://xyz.example.com"));
+        sut.generateParticipantDidWeb(request);
+
+        ParticipantDidTo dto = sut.getParticipantDidWebByAlias("https://abc.example.org");
+
+        assertEquals(created.getDid(), dto.getDid());
+        assertEquals(List.of("https://abc.example.com", "https://abc.example.org"), dto.getAliases());
+    }
+
+    @Test
+    void getDidByUnknownAlias() {
+
+        assertThrows(ParticipantNotFoundException.class,
+            () -> sut.getParticipantDidWebByAlias("https://unknown.example.com"));
+    }
+
+    @Test
+    void getDidByAliasBadRequest() {
+
+        assertThrows(RequestArgumentException.class, () -> sut.getParticipantDidWebByAlias(" "));
     }
 
     @Test
@@ -16,6 +16,10 @@
 
 package eu.possiblex.didwebservice.service;
 
+import eu.possiblex.didwebservice.utils.DidUtils;
+
+import java.util.UUID;
+
 public class DidWebUrlServiceFake implements DidWebUrlService {
 
     private final String didWebDomain;
@@ -28,7 +32,13 @@ public class DidWebUrlServiceFake implements DidWebUrlService {
     @Override
     public String getDidWebForParticipant(String id) {
 
-        return getCommonDidWeb() + ":participant:" + id;
+        return getParticipantsDidWeb() + ":" + id;
+    }
+
+    @Override
+    public String getDidWebForParticipant(UUID participantId) {
+
+        return getDidWebForParticipant(participantId.toString());
     }
 
     @Override
@@ -36,4 +46,23 @@ public class DidWebUrlServiceFake implements DidWebUrlService {
 
         return "did:web:" + didWebDomain.replaceFirst(":", "%3A");
     }
+
+    @Override
+    public String getParticipantsDidWeb() {
+
+        return getCommonDidWeb() + ":participant";
+    }
+
+    @Override
+    public String getParticipantIdForDidWeb(String didWeb) {
+
+        String participantPrefix = getDidWebForParticipant("");
+        return didWeb.startsWith(participantPrefix) ? didWeb.substring(participantPrefix.length()) : null;
+    }
+
+    @Override
+    public UUID getParticipantUuidForDidWeb(String didWeb) {
+
+        return DidUtils.parseParticipantId(getParticipantIdForDidWeb(didWeb));
+    }
 }
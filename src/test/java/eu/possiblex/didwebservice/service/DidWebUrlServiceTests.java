@@ -22,6 +22,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.test.context.ContextConfiguration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -49,6 +50,13 @@ class DidWebUrlServiceTests {
         assertTrue(participantDid.contains("participant:123"));
     }
 
+    @Test
+    void getParticipantsDidWebCorrectly() {
+
+        assertEquals(sut.getCommonDidWeb() + ":participant", sut.getParticipantsDidWeb());
+        assertTrue(sut.getDidWebForParticipant("123").startsWith(sut.getParticipantsDidWeb() + ":"));
+    }
+
     @TestConfiguration
     static class TestConfig {
     }
@@ -0,0 +1,215 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import eu.possiblex.didwebservice.models.exceptions.ParticipantNotFoundException;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = { ParticipantFilterServiceTests.TestConfig.class, ParticipantFilterServiceImpl.class,
+    DidDocumentServiceImpl.class, DidWebServiceApplication.class })
+@TestPropertySource(properties = { "participant-filter.enabled=true", "participant-filter.expected-participants=10" })
+@Transactional
+class ParticipantFilterServiceTests {
+
+    private static final UUID PARTICIPANT_ID = UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c");
+
+    @Autowired
+    private ParticipantFilterServiceImpl sut;
+
+    @Autowired
+    private DidDocumentService didDocumentService;
+
+    @SpyBean
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @MockBean
+    private ClusterInvalidationRelay clusterInvalidationRelay;
+
+    @BeforeEach
+    void setUp() {
+
+        when(clusterInvalidationRelay.getReceivingSince()).thenReturn(Instant.MIN);
+        when(clusterInvalidationRelay.getReceivedUntil()).thenReturn(Instant.MAX);
+
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(PARTICIPANT_ID);
+        participantDidDataRepository.save(participantDidDataEntity);
+        sut.rebuild();
+    }
+
+    @Test
+    void mightExistForHostedParticipant() {
+
+        assertTrue(sut.mightExist(PARTICIPANT_ID));
+    }
+
+    @Test
+    void unknownParticipantRejectedWithoutDatabase() {
+
+        UUID unknown = findRejectedParticipantId();
+
+        assertThrows(ParticipantNotFoundException.class,
+            () -> didDocumentService.getRenderedParticipantDidDocument(unknown.toString()));
+        verify(participantDidDataRepository, never()).findMaterializedDidDocumentByParticipantId(any());
+        verify(participantDidDataRepository, never()).existsByParticipantId(any());
+    }
+
+    @Test
+    void participantCreatedOnOtherNodeFoundWhileRelayLags() {
+
+        UUID created = findRejectedParticipantId();
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(created);
+        participantDidDataRepository.save(participantDidDataEntity);
+        // the change of the other node has not been polled yet
+        when(clusterInvalidationRelay.getReceivedUntil()).thenReturn(Instant.now().minusSeconds(1));
+
+        assertTrue(sut.mightExist(created));
+
+        when(clusterInvalidationRelay.getReceivedUntil()).thenReturn(Instant.MAX);
+        clearInvocations(participantDidDataRepository);
+        assertTrue(sut.mightExist(created));
+        verify(participantDidDataRepository, never()).existsByParticipantId(any());
+    }
+
+    @Test
+    void unknownParticipantConfirmedWithDatabaseWhileRelayLags() {
+
+        UUID unknown = findRejectedParticipantId();
+        when(clusterInvalidationRelay.getReceivedUntil()).thenReturn(Instant.now().minusSeconds(1));
+
+        assertFalse(sut.mightExist(unknown));
+        verify(participantDidDataRepository).existsByParticipantId(unknown);
+    }
+
+    @Test
+    void changedParticipantAdded() {
+
+        UUID added = findRejectedParticipantId();
+
+        sut.onParticipantDidChanged(new ParticipantDidChangedEvent(added.toString()));
+
+        assertTrue(sut.mightExist(added));
+    }
+
+    @Test
+    void nothingRejectedWhileRelayInterrupted() {
+
+        UUID unknown = findRejectedParticipantId();
+        clearInvocations(participantDidDataRepository);
+        when(clusterInvalidationRelay.getReceivingSince()).thenReturn(null);
+
+        assertTrue(sut.mightExist(unknown));
+        verify(participantDidDataRepository, never()).findAllParticipantIds();
+    }
+
+    @Test
+    void rebuiltOnceRelayReceivesAgain() {
+
+        UUID unknown = findRejectedParticipantId();
+        clearInvocations(participantDidDataRepository);
+        when(clusterInvalidationRelay.getReceivingSince()).thenReturn(Instant.now());
+
+        // the changes missed before the relay received again are caught up by the rebuild, which runs synchronously
+        assertTrue(sut.mightExist(unknown));
+        verify(participantDidDataRepository).findAllParticipantIds();
+        assertFalse(sut.mightExist(unknown));
+    }
+
+    @Test
+    void rebuiltWhenFull() {
+
+        for (int i = 0; i < 20; i++) {
+            sut.onParticipantDidChanged(new ParticipantDidChangedEvent(UUID.randomUUID().toString()));
+        }
+
+        // the rebuild runs synchronously in tests
+        verify(participantDidDataRepository, atLeast(2)).findAllParticipantIds();
+        assertTrue(sut.mightExist(PARTICIPANT_ID));
+    }
+
+    @Test
+    void falsePositiveRateReported() {
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        sut.bindTo(registry);
+        findRejectedParticipantId();
+        sut.recordFalsePositive();
+
+        double rate = registry.get("participant.filter.false.positive.rate").gauge().value();
+        assertTrue(rate > 0 && rate < 1);
+        assertEquals(1, registry.get("participant.filter.false.positives").functionCounter().count());
+        assertTrue(registry.get("participant.filter.expected.false.positive.probability").gauge().value() < 0.01);
+    }
+
+    private UUID findRejectedParticipantId() {
+
+        UUID participantId;
+        do {
+            participantId = UUID.randomUUID();
+        } while (sut.mightExist(participantId));
+        return participantId;
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public TaskExecutor applicationTaskExecutor() {
+
+            return new SyncTaskExecutor();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidCreateRequestTo;
+import eu.possiblex.didwebservice.models.dto.ParticipantDidTo;
+import eu.possiblex.didwebservice.models.events.ParticipantDidChangedEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the CPU time and the allocated bytes per request of the read and management paths against the budgets in
+ * {@value #BASELINE_FILE}. A measurement fails if it exceeds its budget by more than the relative tolerance plus the
+ * absolute slack of the file, which keeps small budgets from failing on noise. Both can be overridden with system
+ * properties of the same name prefixed with {@code performance.}, e.g. {@code -Dperformance.tolerance.cpu-nanos=3}.
+ * Run with {@code -Dperformance.update-baseline=true} to write the measurements as the new budgets.
+ * <p>
+ * CPU time budgets depend on the machine they were measured on. Before the checks, a fixed workload that does not
+ * depend on the code of the service is timed, and the CPU time budgets are scaled by how much slower or faster it ran
+ * than when the budgets were written.
+ * <p>
+ * The tests run in a JVM of their own and against a dedicated in-memory database. Time and allocations are counted for
+ * the measuring thread only, so other threads, e.g. the jobs of the application, do not distort them.
+ */
+@SpringBootTest(classes = DidWebServiceApplication.class, properties = {
+    "spring.datasource.url=jdbc:h2:mem:performance;DB_CLOSE_DELAY=-1" })
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("performance")
+class PerformanceRegressionTests {
+
+    private static final Logger log = LoggerFactory.getLogger(PerformanceRegressionTests.class);
+
+    private static final String BASELINE_FILE = "performance-baseline.properties";
+
+    private static final Path BASELINE_SOURCE = Path.of("src", "test", "resources", BASELINE_FILE);
+
+    private static final String CPU_NANOS = "cpu-nanos";
+
+    private static final String ALLOCATED_BYTES = "allocated-bytes";
+
+    private static final String CALIBRATION = "calibration";
+
+    private static final int BUILT_DID_DOCUMENT_PARTICIPANTS = 50;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, Long> measurements = new TreeMap<>();
+
+    private Properties baseline;
+
+    // how much slower the calibration workload ran on this machine than when the budgets were written, budgets are only
+    // relaxed on slower machines and never tightened
+    private double cpuScale = 1;
+
+    @Autowired
+    private DidDocumentService didDocumentService;
+
+    @Autowired
+    private DidDocumentServiceImpl didDocumentServiceImpl;
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private DidManagementService didManagementService;
+
+    private String certificate;
+
+    private String participantId;
+
+    private int subjectCounter;
+
+    @BeforeAll
+    void setUp() throws IOException {
+
+        baseline = new Properties();
+        try (InputStream in = new ClassPathResource(BASELINE_FILE).getInputStream()) {
+            baseline.load(in);
+        }
+
+        certificate = new ClassPathResource("cert.ss.pem").getContentAsString(StandardCharsets.UTF_8);
+        ParticipantDidTo participant = didManagementService.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("performance-subject", List.of("https://performance.example.com"),
+                Map.of("cert-0", certificate)));
+        participantId = participant.getDid().substring(participant.getDid().lastIndexOf(':') + 1);
+
+        long calibrationNanos = calibrate();
+        measurements.put(CALIBRATION + "." + CPU_NANOS, calibrationNanos);
+        String calibrationBudget = baseline.getProperty(CALIBRATION + "." + CPU_NANOS);
+        if (calibrationBudget != null) {
+            cpuScale = Math.max(1, (double) calibrationNanos / Long.parseLong(calibrationBudget));
+        }
+        log.info("Calibration took {} ns, scaling CPU time budgets by {}", calibrationNanos, cpuScale);
+    }
+
+    @AfterAll
+    void writeBaseline() throws IOException {
+
+        if (!Boolean.getBoolean("performance.update-baseline")) {
+            return;
+        }
+
+        List<String> lines = new ArrayList<>(List.of("# Budgets per request of PerformanceRegressionTests.",
+            "# Update with: mvn test -Dtest=PerformanceRegressionTests -Dperformance.update-baseline=true",
+            "tolerance." + CPU_NANOS + "=" + setting("tolerance", CPU_NANOS),
+            "tolerance." + ALLOCATED_BYTES + "=" + setting("tolerance", ALLOCATED_BYTES),
+            "slack." + CPU_NANOS + "=" + (long) setting("slack", CPU_NANOS),
+            "slack." + ALLOCATED_BYTES + "=" + (long) setting("slack", ALLOCATED_BYTES)));
+        measurements.forEach((key, value) -> lines.add(key + "=" + value));
+        Files.write(BASELINE_SOURCE, lines);
+        log.info("Wrote the measurements as new budgets to {}", BASELINE_SOURCE);
+    }
+
+    @Test
+    void getParticipantDidDocument() {
+
+        measure("did-document", 20_000, 20_000, () -> didDocumentService.getParticipantDidDocument(participantId));
+    }
+
+    @Test
+    void buildParticipantDidDocument() {
+
+        List<String> participantIds = new ArrayList<>();
+        for (int i = 0; i < BUILT_DID_DOCUMENT_PARTICIPANTS; i++) {
+            ParticipantDidTo participant = didManagementService.generateParticipantDidWeb(
+                new ParticipantDidCreateRequestTo("performance-built-subject-" + i,
+                    List.of("https://performance-built-" + i + ".example.com"), Map.of("cert-0", certificate)));
+            participantIds.add(participant.getDid().substring(participant.getDid().lastIndexOf(':') + 1));
+        }
+
+        // every request misses the document caches, so the DID document is built from the participant each time
+        int[] next = new int[1];
+        measure("built-did-document", 5_000, 5_000, () -> {
+            String id = participantIds.get(next[0]++ % participantIds.size());
+            didDocumentServiceImpl.onParticipantDidChanged(new ParticipantDidChangedEvent(id));
+            didDocumentService.getParticipantDidDocument(id);
+        });
+    }
+
+    @Test
+    void getRenderedParticipantDidDocument() {
+
+        measure("rendered-did-document", 20_000, 20_000,
+            () -> didDocumentService.getRenderedParticipantDidDocument(participantId));
+    }
+
+    @Test
+    void getParticipantCertificate() {
+
+        measure("certificate", 20_000, 20_000, () -> certificateService.getParticipantCertificate(participantId,
+            "cert-0"));
+    }
+
+    @Test
+    void getRenderedParticipantCertificate() {
+
+        measure("rendered-certificate", 20_000, 20_000,
+            () -> certificateService.getRenderedParticipantCertificate(participantId, "cert-0"));
+    }
+
+    @Test
+    void generateParticipantDidWeb() {
+
+        measure("generate-did-web", 200, 200, () -> didManagementService.generateParticipantDidWeb(
+            new ParticipantDidCreateRequestTo("performance-subject-" + subjectCounter++,
+                List.of("https://performance-" + subjectCounter + ".example.com"), Map.of("cert-0", certificate))));
+    }
+
+    /**
+     * Measure the operation after a warm-up and compare the CPU time and the allocated bytes per request with the
+     * budgets of the baseline.
+     */
+    private void measure(String operation, int warmUpIterations, int iterations, Runnable request) {
+
+        for (int i = 0; i < warmUpIterations; i++) {
+            request.run();
+        }
+
+        long cpuNanosBefore = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            request.run();
+        }
+        long allocatedBytes = (THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore) / iterations;
+        long cpuNanos = (THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuNanosBefore) / iterations;
+
+        measurements.put(operation + "." + CPU_NANOS, cpuNanos);
+        measurements.put(operation + "." + ALLOCATED_BYTES, allocatedBytes);
+        if (Boolean.getBoolean("performance.update-baseline")) {
+            return;
+        }
+
+        String timeResult = check(operation, CPU_NANOS, cpuNanos);
+        String allocationResult = check(operation, ALLOCATED_BYTES, allocatedBytes);
+        log.info("{}: {}, {}", operation, timeResult, allocationResult);
+        assertTrue(timeResult.startsWith("ok") && allocationResult.startsWith("ok"),
+            operation + " regressed: " + timeResult + ", " + allocationResult);
+    }
+
+    private String check(String operation, String metric, long measured) {
+
+        String budgetValue = baseline.getProperty(operation + "." + metric);
+        if (budgetValue == null) {
+            return "ok, " + metric + " " + measured + " without budget";
+        }
+
+        long budget = Long.parseLong(budgetValue);
+        double scale = CPU_NANOS.equals(metric) ? cpuScale : 1;
+        long limit = (long) (budget * scale * (1 + setting("tolerance", metric)) + setting("slack", metric));
+        return (measured <= limit ? "ok, " : "regression, ") + metric + " " + measured + " of budget " + budget
+            + " (limit " + limit + ")";
+    }
+
+    /**
+     * Time a fixed workload of string building, hashing and sorting that does not depend on the code of the service.
+     * The fastest of several rounds is taken, as garbage collections and compilations only ever slow a round down.
+     *
+     * @return CPU time of the measuring thread for one run of the workload
+     */
+    private static long calibrate() {
+
+        for (int i = 0; i < 1_000; i++) {
+            calibrationWorkload(i);
+        }
+        long checksum = 0;
+        long cpuNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long cpuNanosBefore = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            for (int i = 0; i < 200; i++) {
+                checksum += calibrationWorkload(i);
+            }
+            cpuNanos = Math.min(cpuNanos, (THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuNanosBefore) / 200);
+        }
+        log.debug("Calibration checksum {}", checksum);
+        return cpuNanos;
+    }
+
+    private static long calibrationWorkload(int seed) {
+
+        Map<String, Integer> map = new HashMap<>();
+        long[] values = new long[1_000];
+        long random = seed;
+        for (int i = 0; i < values.length; i++) {
+            random = random * 6364136223846793005L + 1442695040888963407L;
+            values[i] = random;
+            map.merge(new StringBuilder("key-").append(random & 0xff).toString(), i, Integer::sum);
+        }
+        Arrays.sort(values);
+        return values[values.length / 2] + map.size();
+    }
+
+    private double setting(String setting, String metric) {
+
+        String key = setting + "." + metric;
+        return Double.parseDouble(System.getProperty("performance." + key, baseline.getProperty(key)));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.did.DidDocument;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest
+@ContextConfiguration(classes = { StaticSiteExportServiceTests.TestConfig.class, StaticSiteExportServiceImpl.class,
+    DidWebServiceApplication.class })
+class StaticSiteExportServiceTests {
+
+    @TempDir
+    static Path exportDirectory;
+
+    @Autowired
+    private StaticSiteExportService sut;
+
+    @SpyBean
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void exportProperties(DynamicPropertyRegistry registry) {
+
+        registry.add("static-export.enabled", () -> "true");
+        registry.add("static-export.export-on-startup", () -> "false");
+        registry.add("static-export.directory", exportDirectory::toString);
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        participantDidDataRepository.deleteAll();
+    }
+
+    @Test
+    void exportAllCorrectly() throws IOException {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000001", "cert1", "cert2"));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000002"));
+        Files.createDirectories(exportDirectory.resolve("participant/removed-participant"));
+
+        assertEquals(2, sut.exportAll());
+
+        assertEquals("00000000-0000-0000-0000-000000000001",
+            objectMapper.readValue(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000001/did.json").toFile(),
+                DidDocument.class).getId());
+        assertEquals("certificate of cert1",
+            Files.readString(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000001/cert1.pem")));
+        assertEquals("certificate of cert2",
+            Files.readString(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000001/cert2.pem")));
+        assertTrue(Files.exists(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000002/did.json")));
+        assertEquals(CertificateServiceFake.EXAMPLE_CERTIFICATE,
+            Files.readString(exportDirectory.resolve(".well-known/cert.ss.pem")));
+        assertTrue(Files.exists(exportDirectory.resolve(".well-known/did.json")));
+        assertFalse(Files.exists(exportDirectory.resolve("participant/removed-participant")));
+    }
+
+    @Test
+    void exportAllKeepsParticipantCreatedDuringExport() {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000005"));
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000006"));
+        sut.exportParticipant("00000000-0000-0000-0000-000000000006");
+        // the second participant is created after the participants to export were read
+        doReturn(List.of(UUID.fromString("00000000-0000-0000-0000-000000000005"))).when(participantDidDataRepository)
+            .findAllParticipantIds();
+
+        assertEquals(1, sut.exportAll());
+
+        assertTrue(Files.exists(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000005/did.json")));
+        assertTrue(Files.exists(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000006/did.json")));
+    }
+
+    @Test
+    void exportParticipantRemovesOutdatedCertificates() throws IOException {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000003", "cert1", "cert2"));
+        sut.exportParticipant("00000000-0000-0000-0000-000000000003");
+
+        ParticipantDidDataEntity participant = participantDidDataRepository.findByParticipantId(
+            UUID.fromString("00000000-0000-0000-0000-000000000003"));
+        participant.setVerificationMethods(new ArrayList<>(List.of(new VerificationMethodEntity(null, "cert3",
+            "certificate of cert3"))));
+        participantDidDataRepository.save(participant);
+        sut.exportParticipant("00000000-0000-0000-0000-000000000003");
+
+        try (var files = Files.list(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000003"))) {
+            assertEquals(List.of("cert3.pem", "did.json"),
+                files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    void exportParticipantRemovesDeletedParticipant() {
+
+        participantDidDataRepository.save(getTestParticipant("00000000-0000-0000-0000-000000000004", "cert1"));
+        sut.exportParticipant("00000000-0000-0000-0000-000000000004");
+        assertTrue(Files.exists(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000004/did.json")));
+
+        participantDidDataRepository.deleteAll();
+        sut.exportParticipant("00000000-0000-0000-0000-000000000004");
+
+        assertFalse(Files.exists(exportDirectory.resolve("participant/00000000-0000-0000-0000-000000000004")));
+    }
+
+    private ParticipantDidDataEntity getTestParticipant(String participantId, String... certificateIds) {
+
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(UUID.fromString(participantId));
+        List<VerificationMethodEntity> verificationMethods = new ArrayList<>();
+        for (String certificateId : certificateIds) {
+            verificationMethods.add(new VerificationMethodEntity(null, certificateId, "certificate of " + certificateId));
+        }
+        participantDidDataEntity.setVerificationMethods(verificationMethods);
+        return participantDidDataEntity;
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public DidDocumentService didDocumentService() {
+
+            return Mockito.spy(new DidDocumentServiceFake());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.service;
+
+import eu.possiblex.didwebservice.DidWebServiceApplication;
+import eu.possiblex.didwebservice.models.entities.ParticipantDidDataEntity;
+import eu.possiblex.didwebservice.models.entities.VerificationMethodEntity;
+import eu.possiblex.didwebservice.repositories.ParticipantDidDataRepository;
+import eu.possiblex.didwebservice.repositories.VerificationMethodRepository;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = { VerificationMethodBackfillJobTests.TestConfig.class,
+    VerificationMethodBackfillJob.class, DidWebServiceApplication.class })
+@TestPropertySource(properties = { "verification-method-backfill.enabled=false",
+    "verification-method-backfill.batch-size=2" })
+@Transactional
+class VerificationMethodBackfillJobTests {
+
+    @Autowired
+    private VerificationMethodBackfillJob sut;
+
+    @Autowired
+    private ParticipantDidDataRepository participantDidDataRepository;
+
+    @Autowired
+    private VerificationMethodRepository verificationMethodRepository;
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Test
+    void backfillCorrectly() throws CertificateException {
+
+        List<VerificationMethodEntity> verificationMethods = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            verificationMethods.add(new VerificationMethodEntity(null, "cert" + i, "certificate " + i));
+        }
+        ParticipantDidDataEntity participantDidDataEntity = new ParticipantDidDataEntity();
+        participantDidDataEntity.setParticipantId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        participantDidDataEntity.setVerificationMethods(verificationMethods);
+        participantDidDataRepository.save(participantDidDataEntity);
+
+        assertEquals(5, sut.backfill());
+
+        String expectedN = certificateService.getPublicJwk(CertificateServiceFake.EXAMPLE_CERTIFICATE).getN();
+        for (VerificationMethodEntity vmEntity : verificationMethodRepository.findAll()) {
+            assertEquals("RSA", vmEntity.getKty());
+            assertEquals(expectedN, vmEntity.getN());
+            assertNotNull(vmEntity.getThumbprint());
+        }
+        assertEquals(0, sut.backfill());
+    }
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public CertificateService certificateService() {
+
+            return Mockito.spy(new CertificateServiceFake());
+        }
+
+        @Bean
+        public DidWebUrlService didWebUrlService() {
+
+            return Mockito.spy(new DidWebUrlServiceFake("localhost:8443"));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+
+    @Test
+    void containsAllInsertedElements() {
+
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        List<UUID> elements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID element = UUID.randomUUID();
+            elements.add(element);
+            filter.put(element);
+        }
+
+        assertTrue(elements.stream().allMatch(filter::mightContain));
+        assertEquals(1000, filter.getInsertions());
+    }
+
+    @Test
+    void falsePositiveRateWithinBounds() {
+
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(UUID.nameUUIDFromBytes(("participant " + i).getBytes()));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain(UUID.nameUUIDFromBytes(("unknown " + i).getBytes()))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2000, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.getExpectedFalsePositiveProbability(), 0.005);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+
+        BloomFilter filter = new BloomFilter(10, 0.01);
+
+        assertFalse(filter.mightContain(UUID.randomUUID()));
+        assertEquals(0, filter.getExpectedFalsePositiveProbability());
+    }
+
+    @Test
+    void invalidSize() {
+
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+}
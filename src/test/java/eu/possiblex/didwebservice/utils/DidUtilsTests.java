@@ -16,15 +16,18 @@
 
 package eu.possiblex.didwebservice.utils;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @ExtendWith(MockitoExtension.class)
 class DidUtilsTests {
@@ -43,4 +46,25 @@ class DidUtilsTests {
         String didWebUrl = DidUtils.getDidDocumentUri(didWebString);
         assertEquals(didWebUrlTarget, didWebUrl);
     }
+
+    @Test
+    void parseParticipantIdCorrectly() {
+
+        assertEquals(UUID.fromString("c0334816-5608-387d-b935-7894158d4b1c"),
+            DidUtils.parseParticipantId("c0334816-5608-387d-b935-7894158d4b1c"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideInvalidParticipantIds")
+    void parseInvalidParticipantId(String participantId) {
+
+        assertNull(DidUtils.parseParticipantId(participantId));
+    }
+
+    private static Stream<Arguments> provideInvalidParticipantIds() {
+
+        return Stream.of(Arguments.of((String) null), Arguments.of("non-existent"),
+            Arguments.of("C0334816-5608-387D-B935-7894158D4B1C"), Arguments.of("c0334816-5608-387d-b935-7894158d4b1"),
+            Arguments.of("c0334816-5608-387d-b935-7894158d4b1cz"), Arguments.of("1-1-1-1-1"));
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2024-2025 Dataport. All rights reserved. Developed as part of the POSSIBLE project.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package eu.possiblex.didwebservice.utils;
+
+import eu.possiblex.didwebservice.models.did.PublicJwk;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JwkUtilsTests {
+
+    // example key and thumbprint from RFC 7638, section 3.1
+    private static final String N = "0vx7agoebGcQSuuPiLJXZptN9nndrQmbXEps2aiAFbWhM78LhWx4cbbfAAtVT86zwu1RK7aPFFxuhDR1L6tSoc_BJECPebWKRXjBZCiFV4n3oknjhMstn64tZ_2W-5JsGY4Hc5n9yBXArwl93lqt7_RN5w6Cf0h4QyQ5v-65YGjQR0_FDW2QvzqY368QQMicAtaSqzs8KJZgnYb9c7d0zgdAZHzu6qMQvRL5hajrn1n91CbOpbISD08qNLyrdkt-bFTWhAI4vMQFh6WeZu0fM4lFd2NcRwr3XPksINHaQ-G_xBniIqbw0Ls1jF44-csFCur-kEgU8awapJzKnqDKgw";
+
+    private static final String THUMBPRINT = "NzbLsXh8uDCcd-6MNwXF4W_7noWXFZAfHkxZsRGC9Xs";
+
+    @Test
+    void computeThumbprintCorrectly() {
+
+        PublicJwk publicJwk = PublicJwk.builder().kty("RSA").n(N).e("AQAB").alg("RS256").build();
+
+        assertEquals(THUMBPRINT, JwkUtils.computeThumbprint(publicJwk));
+    }
+
+    @Test
+    void computeThumbprintWithLeadingZeroAndPadding() {
+
+        // encoding as done for DID documents, BigInteger.toByteArray adds a leading zero byte for the sign
+        BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(N));
+        PublicJwk publicJwk = PublicJwk.builder().kty("RSA")
+            .n(Base64.getUrlEncoder().encodeToString(modulus.toByteArray()))
+            .e(Base64.getUrlEncoder().encodeToString(BigInteger.valueOf(65537).toByteArray())).build();
+
+        assertEquals(THUMBPRINT, JwkUtils.computeThumbprint(publicJwk));
+    }
+}